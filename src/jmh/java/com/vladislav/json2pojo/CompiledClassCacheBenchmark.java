@@ -0,0 +1,51 @@
+package com.vladislav.json2pojo;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * runtime classes of a schema seen before, from json and from an inferred schema, against compiling them again
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompiledClassCacheBenchmark {
+
+    @Param({"homogeneousArray", "heterogeneousArray"})
+    public String payload;
+
+    private String json;
+    private JsonSchema schema;
+    private GeneratePojoFromJson generatePojoFromJson;
+    private CompiledClassCache cache;
+
+    @Setup
+    public void setUp() {
+        json = Payloads.of(payload);
+        schema = JsonSchema.of(json);
+        generatePojoFromJson = GeneratePojoFromJson.builder().build();
+        cache = new CompiledClassCache(generatePojoFromJson, 16);
+        cache.load("com.example", "Root", schema);
+    }
+
+    @Benchmark
+    public Class<?> cachedJson() {
+        return cache.load("com.example", "Root", json);
+    }
+
+    @Benchmark
+    public Class<?> cachedSchema() {
+        return cache.load("com.example", "Root", schema);
+    }
+
+    @Benchmark
+    @Warmup(iterations = 2, time = 5)
+    @Measurement(iterations = 3, time = 5)
+    public Class<?> compiled() {
+        return cache.compile(generatePojoFromJson.invoke("com.example", "Root", schema));
+    }
+}
@@ -0,0 +1,66 @@
+package com.vladislav.json2pojo;
+
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.TypeName;
+import com.vladislav.json2pojo.pojo.FieldNameRef;
+import com.vladislav.json2pojo.pojo.FieldSpecBuilderWrapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FieldFactoryBenchmark {
+
+    @Param({"0", "4", "12"})
+    public int consumers;
+
+    @Param({"userId", "user_id"})
+    public String fieldName;
+
+    @Param({"false", "true"})
+    public boolean rules;  // the same renames and annotations as declarative rules instead of consumers
+
+    private FieldFactory fieldFactory;
+
+    @Setup
+    public void setUp() {
+        final List<Consumer<FieldSpecBuilderWrapper>> afterFieldCreationConsumers = new ArrayList<>();
+        final List<Consumer<FieldNameRef>> beforeFieldCreationConsumers = new ArrayList<>();
+        final List<Pair<Pattern, String>> renames = new ArrayList<>();
+        final List<Pair<Pattern, AnnotationSpec>> annotations = new ArrayList<>();
+        final AnnotationSpec annotation = AnnotationSpec.builder(Deprecated.class).build();
+        for (int i = 0; i < consumers; i++) {
+            if (rules) {
+                renames.add(Pair.of(Pattern.compile("^\\s+|\\s+$"), ""));
+                annotations.add(Pair.of(Pattern.compile(".*"), annotation));
+            } else {
+                beforeFieldCreationConsumers.add(ref -> ref.fieldName = ref.fieldName.trim());
+                afterFieldCreationConsumers.add(wrapper -> wrapper.fieldBuilder.addAnnotation(annotation));
+            }
+        }
+        fieldFactory = new FieldFactory(new ConsumerChain<>(afterFieldCreationConsumers),
+                new ConsumerChain<>(beforeFieldCreationConsumers), new FieldRules(renames, annotations, List.of()),
+                TypeName.DOUBLE.box(), TypeName.LONG.box(), TypeName.INT.box(), TypeName.SHORT.box(),
+                TypeName.BYTE.box(), TypeName.BOOLEAN.box(), null);
+    }
+
+    @Benchmark
+    public FieldSpec createField() {
+        return fieldFactory.createField(TypeName.get(String.class), fieldName);
+    }
+
+    @Benchmark
+    public FieldSpec createIntField() {
+        return fieldFactory.createIntField(fieldName);
+    }
+}
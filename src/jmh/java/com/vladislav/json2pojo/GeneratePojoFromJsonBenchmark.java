@@ -0,0 +1,43 @@
+package com.vladislav.json2pojo;
+
+import com.squareup.javapoet.JavaFile;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeneratePojoFromJsonBenchmark {
+
+    @Param({"wideFlat", "deeplyNested", "homogeneousArray", "heterogeneousArray"})
+    public String payload;
+
+    private String json;
+    private GeneratePojoFromJson generatePojoFromJson;
+
+    @Setup
+    public void setUp() {
+        json = Payloads.of(payload);
+        generatePojoFromJson = GeneratePojoFromJson.builder().build();
+    }
+
+    @Benchmark
+    public JavaFile invoke() {
+        return generatePojoFromJson.invoke("com.example", "Root", json);
+    }
+
+    @Benchmark
+    public JavaFile invokeStreaming() {
+        return generatePojoFromJson.invoke("com.example", "Root", new StringReader(json));
+    }
+
+    @Benchmark
+    public String invokeAndRender() {
+        return generatePojoFromJson.invoke("com.example", "Root", json).toString();
+    }
+}
@@ -0,0 +1,56 @@
+package com.vladislav.json2pojo;
+
+import com.squareup.javapoet.JavaFile;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * inference from a newline delimited json file, memory-mapped byte scanner against the gson reader
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappedFileBenchmark {
+
+    @Param({"1000", "50000"})
+    public int documents;
+
+    private Path path;
+    private GeneratePojoFromJson generatePojoFromJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        path = Files.createTempFile("documents", ".ndjson");
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < documents; i++) {
+                writer.write(Payloads.wideFlat(20 + i % 10));
+                writer.newLine();
+            }
+        }
+        generatePojoFromJson = GeneratePojoFromJson.builder().build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    @Benchmark
+    public JavaFile mapped() throws IOException {
+        return generatePojoFromJson.invoke("com.example", "Root", path);
+    }
+
+    @Benchmark
+    public JavaFile reader() throws IOException {
+        return generatePojoFromJson.invokeNdjson("com.example", "Root", path);
+    }
+}
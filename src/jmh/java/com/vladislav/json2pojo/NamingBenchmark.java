@@ -0,0 +1,45 @@
+package com.vladislav.json2pojo;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NamingBenchmark {
+
+    @Param({"id", "firstName", "first_name", "created-at-utc", "HTTPResponseCode"})
+    public String key;
+
+    private String className;
+
+    @Setup
+    public void setUp() {
+        className = Utils.capitalize(key);
+    }
+
+    @Benchmark
+    public String toCamelCase() {
+        return Utils.toCamelCase(key, true);
+    }
+
+    @Benchmark
+    public String capitalize() {
+        return Utils.capitalize(key);
+    }
+
+    @Benchmark
+    public void isValidFieldName(Blackhole blackhole) {
+        blackhole.consume(Utils.isValidFieldName(key));
+    }
+
+    @Benchmark
+    public void isValidClassName(Blackhole blackhole) {
+        blackhole.consume(Utils.isValidClassName(className));
+    }
+}
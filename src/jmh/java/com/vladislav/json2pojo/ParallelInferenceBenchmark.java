@@ -0,0 +1,61 @@
+package com.vladislav.json2pojo;
+
+import com.squareup.javapoet.JavaFile;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * speed-up of parallel inference on a large array and on a batch of documents with growing number of workers
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelInferenceBenchmark {
+
+    @Param({"0", "1", "2", "4", "8"})  // 0 is the sequential mode
+    public int parallelism;
+
+    private String json;
+    private List<String> jsons;
+    private ForkJoinPool forkJoinPool;
+    private GeneratePojoFromJson generatePojoFromJson;
+
+    @Setup
+    public void setUp() {
+        json = Payloads.homogeneousArray(200_000);
+        jsons = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            jsons.add(Payloads.wideFlat(20 + i % 10));
+        }
+        final GeneratePojoFromJsonBuilder builder = GeneratePojoFromJson.builder();
+        if (parallelism > 0) {
+            forkJoinPool = new ForkJoinPool(parallelism);
+            builder.useParallelInference(forkJoinPool);
+        }
+        generatePojoFromJson = builder.build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (forkJoinPool != null) {
+            forkJoinPool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public JavaFile invoke() {
+        return generatePojoFromJson.invoke("com.example", "Root", json);
+    }
+
+    @Benchmark
+    public JavaFile invokeDocuments() {
+        return generatePojoFromJson.invoke("com.example", "Root", jsons.iterator());
+    }
+}
@@ -0,0 +1,101 @@
+package com.vladislav.json2pojo;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * deterministic json payloads of the shapes that matter for inference
+ */
+@UtilityClass
+class Payloads {
+
+    public String of(String name) {
+        switch (name) {
+            case "wideFlat":
+                return wideFlat(1_000);
+            case "deeplyNested":
+                return deeplyNested(200);
+            case "homogeneousArray":
+                return homogeneousArray(20_000);
+            case "heterogeneousArray":
+                return heterogeneousArray(20_000);
+            default:
+                throw new IllegalArgumentException("Unknown payload " + name);
+        }
+    }
+
+    public String wideFlat(int fields) {
+        final StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < fields; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("\"field_").append(i).append("\":");
+            appendPrimitive(json, i);
+        }
+        return json.append('}').toString();
+    }
+
+    public String deeplyNested(int depth) {
+        final StringBuilder json = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            json.append("{\"id\":").append(i).append(",\"name\":\"level").append(i).append("\",\"child_").append(i)
+                    .append("\":");
+        }
+        json.append("{}");
+        for (int i = 0; i < depth; i++) {
+            json.append('}');
+        }
+        return json.toString();
+    }
+
+    public String homogeneousArray(int elements) {
+        final StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < elements; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(i)
+                    .append(",\"created_at\":").append(1_600_000_000_000L + i)
+                    .append(",\"price\":").append(i).append(".5")
+                    .append(",\"title\":\"item").append(i)
+                    .append("\",\"active\":").append(i % 2 == 0)
+                    .append(",\"tags\":[1,2,3]")
+                    .append(",\"owner\":{\"id\":").append(i).append(",\"login\":\"user").append(i).append("\"}}");
+        }
+        return json.append("]}").toString();
+    }
+
+    public String heterogeneousArray(int elements) {
+        final StringBuilder json = new StringBuilder("{\"events\":[");
+        for (int i = 0; i < elements; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(i).append(",\"type\":\"t").append(i % 7).append('"');
+            if (i % 3 == 0) {
+                json.append(",\"payload\":{\"value\":").append(i).append('}');
+            }
+            if (i % 5 == 0) {
+                json.append(",\"error\":null");
+            }
+            json.append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private void appendPrimitive(StringBuilder json, int i) {
+        switch (i % 4) {
+            case 0:
+                json.append(i);
+                break;
+            case 1:
+                json.append(i).append(".25");
+                break;
+            case 2:
+                json.append(i % 8 == 2);
+                break;
+            default:
+                json.append("\"value").append(i).append('"');
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.vladislav.json2pojo;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.StringReader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * binding json to the generated classes with their generated read methods against reflective gson.
+ * The lazy reader cuts raw json of nested objects and lists out of the string, the cost of reading a model
+ * none of whose nested fields are used
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamingReaderBenchmark {
+
+    @Param({"wideFlat", "homogeneousArray", "heterogeneousArray"})
+    public String payload;
+
+    private String json;
+    private Class<?> rootClass;
+    private MethodHandle read;
+    private MethodHandle lazyRead;
+    private Gson gson;
+
+    @Setup
+    public void setUp() throws Exception {
+        json = Payloads.of(payload);
+        rootClass = compile(GeneratePojoFromJson.builder().generateStreamingReaders(true).build());
+        read = read(rootClass, JsonReader.class);
+        lazyRead = read(compile(GeneratePojoFromJson.builder().decodeNestedLazily(true).build()), String.class);
+        gson = new GsonBuilder().setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES).create();
+    }
+
+    @Benchmark
+    public Object generatedReader() throws Throwable {
+        return (Object) read.invokeExact(new JsonReader(new StringReader(json)));
+    }
+
+    @Benchmark
+    public Object lazyGeneratedReader() throws Throwable {
+        return (Object) lazyRead.invokeExact(json);
+    }
+
+    @Benchmark
+    public Object reflectiveGson() {
+        return gson.fromJson(json, rootClass);
+    }
+
+    private Class<?> compile(GeneratePojoFromJson generatePojoFromJson) {
+        return InMemoryCompiler.compile(generatePojoFromJson.invoke("com.example", "Root", json),
+                getClass().getClassLoader());
+    }
+
+    private static MethodHandle read(Class<?> rootClass, Class<?> input) throws ReflectiveOperationException {
+        final Method method = rootClass.getDeclaredMethod("read", input);
+        method.setAccessible(true);
+        return MethodHandles.lookup().unreflect(method).asType(MethodType.methodType(Object.class, input));
+    }
+}
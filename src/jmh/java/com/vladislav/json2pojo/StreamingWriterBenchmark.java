@@ -0,0 +1,93 @@
+package com.vladislav.json2pojo;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * writing the generated classes with their generated write methods against reflective gson
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamingWriterBenchmark {
+
+    @Param({"wideFlat", "homogeneousArray", "heterogeneousArray"})
+    public String payload;
+
+    private Object root;
+    private MethodHandle writeToWriter;
+    private MethodHandle writeToBytes;
+    private MethodHandle reset;
+    private MethodHandle size;
+    private Object bytes;  // JsonBytes generated nested in the root class
+    private Gson gson;
+
+    @Setup
+    public void setUp() throws Throwable {
+        final String json = Payloads.of(payload);
+        final GeneratePojoFromJson generatePojoFromJson = GeneratePojoFromJson.builder()
+                .generateStreamingReaders(true)
+                .generateStreamingWriters(true)
+                .build();
+        final Class<?> rootClass = InMemoryCompiler.compile(generatePojoFromJson.invoke("com.example", "Root", json),
+                getClass().getClassLoader());
+        final Method read = rootClass.getDeclaredMethod("read", JsonReader.class);
+        read.setAccessible(true);
+        root = read.invoke(null, new JsonReader(new StringReader(json)));
+        writeToWriter = handle(rootClass.getDeclaredMethod("writeTo", JsonWriter.class), JsonWriter.class);
+        final Class<?> bytesClass = Class.forName(rootClass.getName() + "$" + JsonBytesClass.NAME, true,
+                rootClass.getClassLoader());
+        writeToBytes = handle(rootClass.getDeclaredMethod("writeTo", bytesClass), Object.class);
+        reset = handle(bytesClass.getDeclaredMethod("reset"), MethodType.methodType(void.class, Object.class));
+        size = handle(bytesClass.getDeclaredMethod("size"), MethodType.methodType(int.class, Object.class));
+        final Constructor<?> constructor = bytesClass.getDeclaredConstructor(int.class);
+        constructor.setAccessible(true);
+        bytes = constructor.newInstance(json.length() * 2);
+        gson = new GsonBuilder().setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+                .serializeNulls().create();
+    }
+
+    @Benchmark
+    public String generatedJsonWriter() throws Throwable {
+        final StringWriter writer = new StringWriter();
+        writeToWriter.invokeExact(root, new JsonWriter(writer));
+        return writer.toString();
+    }
+
+    @Benchmark
+    public int generatedJsonBytes() throws Throwable {
+        reset.invokeExact(bytes);
+        writeToBytes.invokeExact(root, bytes);
+        return (int) size.invokeExact(bytes);
+    }
+
+    @Benchmark
+    public String reflectiveGson() {
+        return gson.toJson(root);
+    }
+
+    private static MethodHandle handle(Method method, Class<?> parameter) throws IllegalAccessException {
+        return handle(method, MethodType.methodType(void.class, Object.class, parameter));
+    }
+
+    private static MethodHandle handle(Method method, MethodType type) throws IllegalAccessException {
+        method.setAccessible(true);
+        return MethodHandles.lookup().unreflect(method).asType(type);
+    }
+}
@@ -0,0 +1,183 @@
+package com.vladislav.json2pojo;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * folds sampled elements of a single json array, elements are offered in order of their index.
+ * Created by {@link ArraySampling#newSampler(int)}, this one infers every element
+ */
+class ArraySampler {
+    final ArrayShape arrayShape = new ArrayShape();
+    private final boolean escalateOnConflict;
+    boolean escalated;  // every remaining element is inferred
+
+    ArraySampler(ArraySampling sampling) {
+        escalateOnConflict = sampling.escalateOnConflict;
+    }
+
+    /**
+     * @return true if elements from index on are not needed, they are not inferred even if offered
+     */
+    boolean isDone(long index) {
+        return arrayShape.isSettled() || !escalated && isExhausted(index);
+    }
+
+    /**
+     * @return true if element at index must be inferred and passed to {@link #add(long, JsonShape)}
+     */
+    boolean wants(long index) {
+        return escalated || select(index);
+    }
+
+    void add(long index, JsonShape element) {
+        arrayShape.add(element);
+        if (escalateOnConflict && !escalated && arrayShape.hasConflicts()) {
+            escalated = true;
+        }
+    }
+
+    ArrayShape finish() {
+        return arrayShape;
+    }
+
+    boolean isExhausted(long index) {
+        return false;
+    }
+
+    boolean select(long index) {
+        return true;
+    }
+
+    static class First extends ArraySampler {
+        private final int size;
+
+        First(ArraySampling sampling) {
+            super(sampling);
+            size = sampling.size;
+        }
+
+        @Override
+        boolean isExhausted(long index) {
+            return index >= size;
+        }
+    }
+
+    /**
+     * first element and a uniform sample of the rest, sampled shapes are folded in order of their index
+     */
+    static class Reservoir extends ArraySampler {
+        private final SplittableRandom random;
+        private final JsonShape[] shapes;
+        private final long[] indices;
+        private final ArrayShape seen;  // every offered element, null if sampling never escalates
+        private int filled;
+        private int slot;
+
+        Reservoir(ArraySampling sampling) {
+            super(sampling);
+            random = new SplittableRandom(sampling.seed);
+            shapes = new JsonShape[sampling.size - 1];
+            indices = new long[sampling.size - 1];
+            seen = sampling.escalateOnConflict ? new ArrayShape() : null;
+        }
+
+        @Override
+        boolean select(long index) {
+            if (index == 0) {
+                return true;
+            } else if (filled < shapes.length) {
+                slot = filled++;
+                return true;
+            }
+            final long position = random.nextLong(index);  // index of the element among the rest
+            if (position < shapes.length) {
+                slot = (int) position;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        void add(long index, JsonShape element) {
+            if (seen != null && !escalated) {
+                seen.add(element);
+                if (seen.hasConflicts()) {
+                    flush();
+                    escalated = true;
+                }
+            }
+            if (index == 0 || escalated) {
+                super.add(index, element);
+            } else {
+                shapes[slot] = element;
+                indices[slot] = index;
+            }
+        }
+
+        @Override
+        ArrayShape finish() {
+            if (!escalated) {
+                flush();
+            }
+            return arrayShape;
+        }
+
+        private void flush() {
+            final Integer[] order = new Integer[filled];
+            Arrays.setAll(order, i -> i);
+            Arrays.sort(order, (i1, i2) -> Long.compare(indices[i1], indices[i2]));
+            for (int i : order) {
+                arrayShape.add(shapes[i]);
+                shapes[i] = null;
+            }
+            filled = 0;
+        }
+    }
+
+    /**
+     * one element from each of equal parts of the array, the first part always gives the first element
+     */
+    static class Stratified extends ArraySampler {
+        private final SplittableRandom random;
+        private final int size;
+        private final int arraySize;  // -1 if not known
+        private int stratum;
+        private long next;  // index of the element sampled from the current stratum
+        private long stride = 1;  // used if size of the array is not known
+        private long limit;
+
+        Stratified(ArraySampling sampling, int arraySize) {
+            super(sampling);
+            random = new SplittableRandom(sampling.seed);
+            size = sampling.size;
+            this.arraySize = arraySize;
+            limit = size;
+        }
+
+        @Override
+        boolean isExhausted(long index) {
+            return arraySize >= 0 && (arraySize <= size ? index >= arraySize : stratum >= size);
+        }
+
+        @Override
+        boolean select(long index) {
+            if (arraySize < 0) {
+                while (index >= limit) {
+                    stride <<= 1;
+                    limit += size * stride;
+                }
+                return index % stride == 0;
+            } else if (arraySize <= size) {
+                return true;
+            }
+            while (stratum < size && index > next) {
+                stratum++;
+                final long from = (long) arraySize * stratum / size;
+                final long to = (long) arraySize * (stratum + 1) / size;
+                next = from + random.nextLong(to - from);
+            }
+            return index == next;
+        }
+    }
+}
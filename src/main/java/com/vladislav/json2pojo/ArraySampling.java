@@ -0,0 +1,99 @@
+package com.vladislav.json2pojo;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * chooses which elements of a json array are inferred, arrays are sampled at every level of nesting.
+ * The first element of an array is always inferred, so sampling never changes the element type
+ * chosen for arrays of different types
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ArraySampling {
+    private static final ArraySampling ALL = new ArraySampling(Kind.ALL, Integer.MAX_VALUE, 0, false);
+
+    enum Kind {
+        ALL, FIRST, RESERVOIR, STRATIFIED
+    }
+
+    final Kind kind;
+    final int size;
+    final long seed;
+    final boolean escalateOnConflict;
+
+    /**
+     * every element is inferred, default
+     */
+    public static ArraySampling all() {
+        return ALL;
+    }
+
+    /**
+     * only the first elements of each array are inferred, the rest is skipped without being parsed into a tree
+     */
+    public static ArraySampling first(int size) {
+        return new ArraySampling(Kind.FIRST, checkSize(size), 0, false);
+    }
+
+    /**
+     * uniform random sample of each array, the sample is reproducible for the same seed
+     */
+    public static ArraySampling reservoir(int size, long seed) {
+        return new ArraySampling(Kind.RESERVOIR, checkSize(size), seed, false);
+    }
+
+    public static ArraySampling reservoir(int size) {
+        return reservoir(size, 0);
+    }
+
+    /**
+     * one element from each of equal parts of the array, so the beginning, the middle and the end are all seen.
+     * If the size of the array is not known (it is read as a stream), the distance between elements doubles
+     * after every {@code size} elements, so about {@code size * log2(n / size)} elements are inferred
+     */
+    public static ArraySampling stratified(int size, long seed) {
+        return new ArraySampling(Kind.STRATIFIED, checkSize(size), seed, false);
+    }
+
+    public static ArraySampling stratified(int size) {
+        return stratified(size, 0);
+    }
+
+    /**
+     * @return same sampling that infers every remaining element of an array, once its sample has elements
+     * of different types, numbers of different width or objects with different fields
+     */
+    public ArraySampling escalateOnConflict() {
+        if (kind == Kind.ALL) {
+            return this;
+        }
+        return new ArraySampling(kind, size, seed, true);
+    }
+
+    boolean isAll() {
+        return kind == Kind.ALL;
+    }
+
+    /**
+     * @param arraySize number of elements in the array, -1 if not known
+     */
+    ArraySampler newSampler(int arraySize) {
+        switch (kind) {
+            case FIRST:
+                return new ArraySampler.First(this);
+            case RESERVOIR:
+                return new ArraySampler.Reservoir(this);
+            case STRATIFIED:
+                return new ArraySampler.Stratified(this, arraySize);
+            default:
+                return new ArraySampler(this);
+        }
+    }
+
+    private static int checkSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Sample size must be positive: " + size);
+        }
+        return size;
+    }
+}
@@ -0,0 +1,246 @@
+package com.vladislav.json2pojo;
+
+import lombok.Getter;
+
+/**
+ * shape of a json array, elements are folded one by one so the array itself is never kept.
+ * Types of elements, primitives and widths of numbers are kept as bit masks indexed by ordinal,
+ * so folding an element allocates nothing. Objects are merged into a single shape with the union of their fields,
+ * and so are elements of nested arrays
+ */
+@Getter
+class ArrayShape extends JsonShape {
+
+    private JsonElementType elementType;  // type of the first element, null if array is empty
+    private int otherTypes;  // non-null types of the rest
+    private int primitiveTypes;
+    private int numberTypes;
+    private int formats = -1;  // formats every string element has, see ValueFormats
+    private boolean nullable;  // some element is null
+    private ObjectShape objects;  // union of all objects, fields missing in some object are nullable
+    private boolean sameFields = true;  // all objects have the same fields
+    private ArrayShape elements;  // elements of all nested arrays, null if there are no nested arrays
+    private long elementCount;
+
+    @Override
+    JsonElementType getType() {
+        return JsonElementType.ARRAY;
+    }
+
+    boolean isSameType() {
+        return otherTypes == 0 || otherTypes == bit(elementType);
+    }
+
+    /**
+     * @return non-null types of elements other than the type of the first one,
+     * unlike {@link #getOtherTypes()} doesn't depend on whether the first type repeats
+     */
+    int getMixedTypes() {
+        return elementType == null ? otherTypes : otherTypes & ~bit(elementType);
+    }
+
+    /**
+     * @return the only primitive type of elements, null if there are none or several
+     */
+    JsonPrimitiveType getPrimitiveType() {
+        return Integer.bitCount(primitiveTypes) == 1
+                ? JsonPrimitiveType.values()[Integer.numberOfTrailingZeros(primitiveTypes)] : null;
+    }
+
+    /**
+     * @return number type that holds all numbers of elements, null if there are no numbers
+     */
+    NumberType getNumberType() {
+        return NumberType.join(numberTypes);
+    }
+
+    void add(JsonShape element) {
+        elementCount++;
+        final JsonElementType type = element.getType();
+        if (elementType == null) {
+            elementType = type;
+        } else if (type != JsonElementType.NULL) {
+            otherTypes |= bit(type);
+        }
+        switch (type) {
+            case PRIMITIVE:
+                final PrimitiveShape primitiveShape = (PrimitiveShape) element;
+                primitiveTypes |= bit(primitiveShape.primitiveType);
+                if (primitiveShape.numberType != null) {
+                    numberTypes |= bit(primitiveShape.numberType);
+                } else if (primitiveShape.values != null) {
+                    formats &= primitiveShape.formats;
+                }
+                break;
+            case OBJECT:
+                final ObjectShape objectShape = (ObjectShape) element;
+                if (objects == null) {
+                    objects = objectShape.copy();  // the element may be folded into other arrays too
+                } else {
+                    sameFields &= objects.fields.keySet().equals(objectShape.fields.keySet());
+                    objects.absorb(objectShape);
+                }
+                break;
+            case ARRAY:
+                if (elements == null) {
+                    elements = new ArrayShape();
+                }
+                elements.concat((ArrayShape) element);
+                break;
+            case NULL:
+                nullable = true;
+                break;
+        }
+    }
+
+    /**
+     * shape of the array made of elements of this array followed by elements of other array,
+     * gives the same shape as adding all the elements one by one. Neither shape is modified
+     */
+    ArrayShape append(ArrayShape other) {
+        if (elementType == null) {
+            return other;
+        } else if (other.elementType == null) {
+            return this;
+        }
+        final ArrayShape result = copy();
+        result.concat(other);
+        return result;
+    }
+
+    /**
+     * shape of both arrays as if they were seen at the same place in different samples,
+     * unlike {@link #append(ArrayShape)} the first element of one array is not preferred over the other.
+     * Neither shape is modified
+     */
+    ArrayShape merge(ArrayShape other) {
+        if (elementType == null) {
+            return other;
+        } else if (other.elementType == null) {
+            return this;
+        }
+        final ArrayShape result = new ArrayShape();
+        ArrayShape target = result;
+        ArrayShape shape1 = this;
+        ArrayShape shape2 = other;
+        while (true) {  // nested arrays are merged level by level, no recursion for deep arrays of arrays
+            target.mergeLevel(shape1, shape2);
+            if (shape1.elements == null || shape2.elements == null) {
+                target.elements = shape1.elements == null ? shape2.elements : shape1.elements;
+                return result;
+            }
+            shape1 = shape1.elements;
+            shape2 = shape2.elements;
+            if (shape1.elementType == null || shape2.elementType == null) {
+                target.elements = shape1.elementType == null ? shape2 : shape1;
+                return result;
+            }
+            target.elements = new ArrayShape();
+            target = target.elements;
+        }
+    }
+
+    /**
+     * @return true if elements differ in type, width of numbers or fields of objects.
+     * Numbers narrower than int don't conflict with each other or with ints, big numbers don't conflict with doubles
+     */
+    boolean hasConflicts() {
+        return !isSameType() || Integer.bitCount(primitiveTypes) > 1
+                || Integer.bitCount(NumberType.orDouble(NumberType.atLeastInt(numberTypes))) > 1 || !sameFields;
+    }
+
+    /**
+     * @return true if no more elements can change the inferred type of the array
+     */
+    boolean isSettled() {
+        return !isSameType();
+    }
+
+    /**
+     * adds elements of other array after elements of this one, other array is not modified
+     */
+    private void concat(ArrayShape other) {
+        ArrayShape target = this;
+        while (other != null && other.elementType != null) {  // level by level, like merge
+            target.concatLevel(other);
+            if (other.elements != null && target.elements == null) {
+                target.elements = new ArrayShape();
+            }
+            target = target.elements;
+            other = other.elements;
+        }
+    }
+
+    /**
+     * merges both arrays into this one except their nested arrays
+     */
+    private void mergeLevel(ArrayShape shape1, ArrayShape shape2) {
+        combine(shape1);
+        combine(shape2);
+        if (shape1.elementType == JsonElementType.NULL) {  // leading nulls of one sample don't matter for another
+            elementType = shape2.elementType;
+        } else {
+            elementType = shape1.elementType;
+            if (shape2.elementType != JsonElementType.NULL) {
+                otherTypes |= bit(shape2.elementType);
+            }
+        }
+        if (shape1.objects == null) {
+            objects = shape2.objects;
+        } else if (shape2.objects == null) {
+            objects = shape1.objects;
+        } else {
+            sameFields &= shape1.objects.fields.keySet().equals(shape2.objects.fields.keySet());
+            objects = shape1.objects.merge(shape2.objects);
+        }
+    }
+
+    /**
+     * adds elements of other array except its nested arrays
+     */
+    private void concatLevel(ArrayShape other) {
+        if (elementType == null) {
+            elementType = other.elementType;
+        } else if (other.elementType != JsonElementType.NULL) {
+            otherTypes |= bit(other.elementType);
+        }
+        combine(other);
+        if (objects == null) {
+            objects = other.objects == null ? null : other.objects.copy();
+        } else if (other.objects != null) {
+            sameFields &= objects.fields.keySet().equals(other.objects.fields.keySet());
+            objects.absorb(other.objects);
+        }
+    }
+
+    private void combine(ArrayShape other) {
+        otherTypes |= other.otherTypes;
+        primitiveTypes |= other.primitiveTypes;
+        numberTypes |= other.numberTypes;
+        formats &= other.formats;
+        nullable |= other.nullable;
+        sameFields &= other.sameFields;
+        elementCount += other.elementCount;
+    }
+
+    private ArrayShape copy() {
+        final ArrayShape result = new ArrayShape();
+        ArrayShape source = this;
+        ArrayShape target = result;
+        while (true) {
+            target.elementType = source.elementType;
+            target.combine(source);
+            target.objects = source.objects == null ? null : source.objects.copy();
+            if (source.elements == null) {
+                return result;
+            }
+            target.elements = new ArrayShape();
+            target = target.elements;
+            source = source.elements;
+        }
+    }
+
+    private static int bit(Enum<?> value) {
+        return 1 << value.ordinal();
+    }
+}
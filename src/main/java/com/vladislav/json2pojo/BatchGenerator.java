@@ -0,0 +1,123 @@
+package com.vladislav.json2pojo;
+
+import com.squareup.javapoet.JavaFile;
+import lombok.RequiredArgsConstructor;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * runs many generation jobs concurrently on one shared {@link GeneratePojoFromJson}.
+ * At most {@code maxConcurrency} jobs are in flight, {@link #submit(Job)} blocks the caller until
+ * a running job completes. A failed job doesn't affect the others, its error is reported in its result
+ */
+public class BatchGenerator implements AutoCloseable {
+    private final GeneratePojoFromJson generatePojoFromJson;
+    private final ExecutorService executor;
+    private final boolean ownExecutor;
+    private final Semaphore permits;
+
+    /**
+     * jobs run on virtual threads when the runtime has them, otherwise on a pool of {@code maxConcurrency} threads
+     */
+    public BatchGenerator(GeneratePojoFromJson generatePojoFromJson, int maxConcurrency) {
+        this(generatePojoFromJson, newDefaultExecutor(maxConcurrency), maxConcurrency, true);
+    }
+
+    /**
+     * @param executor executor to run jobs on, it is not shut down on {@link #close()}
+     */
+    public BatchGenerator(GeneratePojoFromJson generatePojoFromJson, ExecutorService executor, int maxConcurrency) {
+        this(generatePojoFromJson, executor, maxConcurrency, false);
+    }
+
+    private BatchGenerator(GeneratePojoFromJson generatePojoFromJson, ExecutorService executor, int maxConcurrency,
+                           boolean ownExecutor) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Max concurrency must be positive");
+        }
+        this.generatePojoFromJson = generatePojoFromJson;
+        this.executor = executor;
+        this.ownExecutor = ownExecutor;
+        permits = new Semaphore(maxConcurrency);
+    }
+
+    @RequiredArgsConstructor
+    public static class Job {
+        public final String packagePath;
+        public final String className;
+        public final String json;
+    }
+
+    @RequiredArgsConstructor
+    public static class Result {
+        public final Job job;
+        public final JavaFile javaFile;  // null if job failed
+        public final Throwable error;  // null if job succeeded
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    /**
+     * blocks while the maximum number of jobs is in flight
+     *
+     * @return result of the job, the future never completes exceptionally
+     */
+    public CompletableFuture<Result> submit(Job job) throws InterruptedException {
+        permits.acquire();
+        try {
+            return CompletableFuture.supplyAsync(() -> run(job), executor);
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * @return results in the order of jobs
+     */
+    public List<Result> generate(List<Job> jobs) throws InterruptedException {
+        final List<CompletableFuture<Result>> futures = new ArrayList<>(jobs.size());
+        for (Job job : jobs) {
+            futures.add(submit(job));
+        }
+        final List<Result> results = new ArrayList<>(jobs.size());
+        for (CompletableFuture<Result> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {  // run() catches everything, so this is a bug
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public void close() {
+        if (ownExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    private Result run(Job job) {
+        try {
+            return new Result(job, generatePojoFromJson.invoke(job.packagePath, job.className, job.json), null);
+        } catch (Throwable e) {
+            return new Result(job, null, e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static ExecutorService newDefaultExecutor(int maxConcurrency) {
+        try {  // Executors.newVirtualThreadPerTaskExecutor() is available since Java 21
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            return Executors.newFixedThreadPool(maxConcurrency);
+        }
+    }
+}
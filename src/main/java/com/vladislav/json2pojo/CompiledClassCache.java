@@ -0,0 +1,126 @@
+package com.vladislav.json2pojo;
+
+import com.squareup.javapoet.JavaFile;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * generates, compiles and loads classes at runtime without writing anything to disk, see {@link #load}.
+ * Loaded classes are cached by class name and fingerprint of the inferred schema, so json of a schema seen before
+ * costs only inference and a lookup. At most {@code maxSchemas} schemas stay cached, the least recently used one
+ * is evicted first. Every schema has its own class loader, so classes of an evicted schema are unloaded once
+ * the application drops its references to them and their instances. Safe for concurrent use,
+ * a schema loaded by two threads at once may be compiled twice and one of the results is kept.
+ * Classes are compiled with the system java compiler, so it works only on a JDK
+ */
+public class CompiledClassCache {
+    private final GeneratePojoFromJson generatePojoFromJson;
+    private final ClassLoader parent;
+    private final Map<Key, Entry> classes;  // access ordered, the eldest is the least recently used
+    private long hits;
+    private long misses;
+
+    /**
+     * generated classes see classes of the library and of its dependencies, e.g. Gson
+     */
+    public CompiledClassCache(GeneratePojoFromJson generatePojoFromJson, int maxSchemas) {
+        this(generatePojoFromJson, maxSchemas, CompiledClassCache.class.getClassLoader());
+    }
+
+    /**
+     * @param parent class loader that loads classes generated classes refer to,
+     *               must be able to load classes of the library and Gson
+     */
+    public CompiledClassCache(GeneratePojoFromJson generatePojoFromJson, int maxSchemas, ClassLoader parent) {
+        if (maxSchemas < 1) {
+            throw new IllegalArgumentException("Max schemas must be positive");
+        }
+        this.generatePojoFromJson = generatePojoFromJson;
+        this.parent = parent;
+        classes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CompiledClassCache.Entry> eldest) {
+                return size() > maxSchemas;
+            }
+        };
+    }
+
+    public Class<?> load(String packagePath, String className, String json) {
+        return load(packagePath, className, new JsonSchema(generatePojoFromJson.infer(new StringReader(json))));
+    }
+
+    /**
+     * @return top-level generated class of the schema, its nested classes are loaded by the same class loader
+     * @throws IllegalStateException if the generated classes don't compile, e.g. because of a consumer
+     */
+    public Class<?> load(String packagePath, String className, JsonSchema schema) {
+        final Key key = new Key(packagePath, className, generatePojoFromJson.fingerprint(schema.shape));
+        synchronized (classes) {
+            final Entry entry = classes.get(key);
+            if (entry != null && generatePojoFromJson.isSameShape(entry.shape, schema.shape)) {
+                hits++;
+                return entry.loadedClass;
+            }
+            misses++;
+        }
+        final Class<?> loadedClass = compile(generatePojoFromJson.invoke(packagePath, className, schema));
+        synchronized (classes) {
+            classes.put(key, new Entry(schema.shape, loadedClass));  // replaces the rare fingerprint collision
+        }
+        return loadedClass;
+    }
+
+    /**
+     * compiles the output of any invocation in memory without caching it
+     *
+     * @return top-level class of the file loaded by a new class loader
+     */
+    public Class<?> compile(JavaFile javaFile) {
+        return InMemoryCompiler.compile(javaFile, parent);
+    }
+
+    public int size() {
+        synchronized (classes) {
+            return classes.size();
+        }
+    }
+
+    public long hits() {
+        synchronized (classes) {
+            return hits;
+        }
+    }
+
+    public long misses() {
+        synchronized (classes) {
+            return misses;
+        }
+    }
+
+    /**
+     * evicts every schema, loaded classes are unloaded as with eviction
+     */
+    public void clear() {
+        synchronized (classes) {
+            classes.clear();
+        }
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class Key {
+        final String packagePath;
+        final String className;
+        final long fingerprint;
+    }
+
+    @RequiredArgsConstructor
+    private static class Entry {
+        final ObjectShape shape;  // tells apart schemas with the same fingerprint
+        final Class<?> loadedClass;
+    }
+}
@@ -0,0 +1,44 @@
+package com.vladislav.json2pojo;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * consumers of one hook resolved once when the generator is built. A single consumer is called directly,
+ * several are called from an array without an iterator or a capturing lambda per value,
+ * and callers skip allocating the value at all if the chain {@link #isEmpty()}
+ */
+final class ConsumerChain<T> {
+    private final List<Consumer<T>> consumers;
+    private final Consumer<T> single;  // null unless there is exactly one consumer
+    private final Consumer<T>[] all;
+
+    ConsumerChain(List<Consumer<T>> consumers) {
+        this.consumers = List.copyOf(consumers);
+        single = consumers.size() == 1 ? consumers.get(0) : null;
+        @SuppressWarnings("unchecked")
+        final Consumer<T>[] all = (Consumer<T>[]) this.consumers.toArray(new Consumer<?>[0]);
+        this.all = all;
+    }
+
+    boolean isEmpty() {
+        return all.length == 0;
+    }
+
+    void accept(T value) {
+        if (single != null) {
+            single.accept(value);
+            return;
+        }
+        for (Consumer<T> consumer : all) {
+            consumer.accept(value);
+        }
+    }
+
+    /**
+     * @return chain of the same consumers that add their time to the metrics, see {@link GenerationMetrics#timed}
+     */
+    ConsumerChain<T> timed(GenerationMetrics metrics, String hook) {
+        return new ConsumerChain<>(metrics.timed(hook, consumers));
+    }
+}
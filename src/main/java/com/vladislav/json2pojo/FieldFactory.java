@@ -9,43 +9,95 @@ import java.util.List;
 import java.util.function.Consumer;
 
 public class FieldFactory {
-    private final List<Consumer<FieldSpecBuilderWrapper>> afterFieldCreationConsumers;
-    private final List<Consumer<FieldNameRef>> beforeFieldCreationConsumers;
+    private final ConsumerChain<FieldSpecBuilderWrapper> afterFieldCreationConsumers;
+    private final ConsumerChain<FieldNameRef> beforeFieldCreationConsumers;
+    final FieldRules rules;
     private final TypeName doubleType;
     private final TypeName longType;
     private final TypeName intType;
+    private final TypeName shortType;
+    private final TypeName byteType;
     private final TypeName booleanType;
     private final TypeName objectType;
+    private final GenerationMetrics metrics;  // null if metrics are not collected
 
     FieldFactory(
             List<Consumer<FieldSpecBuilderWrapper>> afterFieldCreationConsumers,
             List<Consumer<FieldNameRef>> beforeFieldCreationConsumers, TypeName doubleType,
             TypeName longType,
             TypeName intType,
+            TypeName shortType,
+            TypeName byteType,
             TypeName booleanType
     ) {
+        this(new ConsumerChain<>(afterFieldCreationConsumers), new ConsumerChain<>(beforeFieldCreationConsumers),
+                FieldRules.NONE, doubleType, longType, intType, shortType, byteType, booleanType, null);
+    }
+
+    FieldFactory(
+            ConsumerChain<FieldSpecBuilderWrapper> afterFieldCreationConsumers,
+            ConsumerChain<FieldNameRef> beforeFieldCreationConsumers,
+            FieldRules rules,
+            TypeName doubleType,
+            TypeName longType,
+            TypeName intType,
+            TypeName shortType,
+            TypeName byteType,
+            TypeName booleanType,
+            GenerationMetrics metrics
+    ) {
+        this.metrics = metrics;
         this.afterFieldCreationConsumers = afterFieldCreationConsumers;
         this.beforeFieldCreationConsumers = beforeFieldCreationConsumers;
+        this.rules = rules;
         this.doubleType = doubleType;
         this.longType = longType;
         this.intType = intType;
+        this.shortType = shortType;
+        this.byteType = byteType;
         this.booleanType = booleanType;
         objectType = TypeName.get(Object.class);
     }
 
+    /**
+     * @return factory for one invocation that records field creation and its consumers to the metrics
+     */
+    FieldFactory withMetrics(GenerationMetrics metrics) {
+        return new FieldFactory(afterFieldCreationConsumers.timed(metrics, "addAfterFieldCreationConsumers"),
+                beforeFieldCreationConsumers.timed(metrics, "addBeforeFieldCreationConsumers"), rules,
+                doubleType, longType, intType, shortType, byteType, booleanType, metrics);
+    }
+
     public FieldSpec createField(TypeName typeName, String fieldName) {
-        String fieldNameFormatted;
-        if (Utils.isValidFieldName(fieldName)) {
-            fieldNameFormatted = fieldName;
-        } else {
-            fieldNameFormatted = Utils.toCamelCase(fieldName, true);
+        if (metrics == null) {
+            return doCreateField(typeName, fieldName);
+        }
+        final long start = System.nanoTime();
+        try {
+            metrics.addField();
+            return doCreateField(typeName, fieldName);
+        } finally {
+            GenerationMetrics.record(metrics, GenerationMetrics.Phase.FIELD_CREATION, start);
+        }
+    }
+
+    /**
+     * the name ref and the wrapper are allocated only if there are consumers to get them
+     */
+    private FieldSpec doCreateField(TypeName typeName, String fieldName) {
+        String fieldNameFormatted = Utils.toFieldName(rules.rename(fieldName));
+        if (!beforeFieldCreationConsumers.isEmpty()) {
+            final FieldNameRef fieldNameRef = new FieldNameRef(fieldNameFormatted);
+            beforeFieldCreationConsumers.accept(fieldNameRef);
+            fieldNameFormatted = fieldNameRef.fieldName;
         }
-        final FieldNameRef fieldNameRef = new FieldNameRef(fieldNameFormatted);
-        beforeFieldCreationConsumers.forEach(consumer -> consumer.accept(fieldNameRef));
-        fieldNameFormatted = fieldNameRef.fieldName;
 
         final FieldSpec.Builder builder = FieldSpec.builder(typeName, fieldNameFormatted);
-        afterFieldCreation(new FieldSpecBuilderWrapper(typeName, fieldName, fieldNameFormatted, builder));
+        rules.annotate(fieldName, builder);
+        if (!afterFieldCreationConsumers.isEmpty()) {
+            afterFieldCreationConsumers.accept(new FieldSpecBuilderWrapper(typeName, fieldName, fieldNameFormatted,
+                    builder));
+        }
         return builder.build();
     }
 
@@ -53,23 +105,51 @@ public class FieldFactory {
         return createField(doubleType, fieldName);
     }
 
+    public FieldSpec createDoubleField(String fieldName, boolean nullable) {
+        return createField(nullable ? doubleType.box() : doubleType, fieldName);
+    }
+
     public FieldSpec createIntField(String fieldName) {
         return createField(intType, fieldName);
     }
 
+    public FieldSpec createIntField(String fieldName, boolean nullable) {
+        return createField(nullable ? intType.box() : intType, fieldName);
+    }
+
+    public FieldSpec createShortField(String fieldName) {
+        return createField(shortType, fieldName);
+    }
+
+    public FieldSpec createShortField(String fieldName, boolean nullable) {
+        return createField(nullable ? shortType.box() : shortType, fieldName);
+    }
+
+    public FieldSpec createByteField(String fieldName) {
+        return createField(byteType, fieldName);
+    }
+
+    public FieldSpec createByteField(String fieldName, boolean nullable) {
+        return createField(nullable ? byteType.box() : byteType, fieldName);
+    }
+
     public FieldSpec createLongField(String fieldName) {
         return createField(longType, fieldName);
     }
 
+    public FieldSpec createLongField(String fieldName, boolean nullable) {
+        return createField(nullable ? longType.box() : longType, fieldName);
+    }
+
     public FieldSpec createBooleanField(String fieldName) {
         return createField(booleanType, fieldName);
     }
 
-    public FieldSpec createObjectField(String fieldName) {
-        return createField(objectType, fieldName);
+    public FieldSpec createBooleanField(String fieldName, boolean nullable) {
+        return createField(nullable ? booleanType.box() : booleanType, fieldName);
     }
 
-    private void afterFieldCreation(FieldSpecBuilderWrapper wrapper) {
-        afterFieldCreationConsumers.forEach(builderConsumer -> builderConsumer.accept(wrapper));
+    public FieldSpec createObjectField(String fieldName) {
+        return createField(objectType, fieldName);
     }
 }
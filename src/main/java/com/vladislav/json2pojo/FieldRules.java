@@ -0,0 +1,70 @@
+package com.vladislav.json2pojo;
+
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.FieldSpec;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * declarative field rules of {@link GeneratePojoFromJsonBuilder}: renames, annotations and skipped fields.
+ * Rules match json names and are applied by {@link FieldFactory} itself, so unlike consumers they need
+ * no wrapper objects and no calls through lambdas
+ */
+final class FieldRules {
+    static final FieldRules NONE = new FieldRules(List.of(), List.of(), List.of());
+
+    private final Pattern[] renamePatterns;
+    private final String[] replacements;
+    private final Pattern[] annotationPatterns;
+    private final AnnotationSpec[] annotations;
+    private final Pattern[] skipPatterns;
+
+    FieldRules(List<Pair<Pattern, String>> renames, List<Pair<Pattern, AnnotationSpec>> annotations,
+               List<Pattern> skips) {
+        renamePatterns = new Pattern[renames.size()];
+        replacements = new String[renames.size()];
+        for (int i = 0; i < renames.size(); i++) {
+            renamePatterns[i] = renames.get(i).value1;
+            replacements[i] = renames.get(i).value2;
+        }
+        annotationPatterns = new Pattern[annotations.size()];
+        this.annotations = new AnnotationSpec[annotations.size()];
+        for (int i = 0; i < annotations.size(); i++) {
+            annotationPatterns[i] = annotations.get(i).value1;
+            this.annotations[i] = annotations.get(i).value2;
+        }
+        skipPatterns = skips.toArray(new Pattern[0]);
+    }
+
+    /**
+     * @return json name with every rename rule applied in order, the name is made a field name afterwards
+     */
+    String rename(String jsonName) {
+        String name = jsonName;
+        for (int i = 0; i < renamePatterns.length; i++) {
+            name = renamePatterns[i].matcher(name).replaceAll(replacements[i]);
+        }
+        return name;
+    }
+
+    void annotate(String jsonName, FieldSpec.Builder builder) {
+        for (int i = 0; i < annotationPatterns.length; i++) {
+            if (annotationPatterns[i].matcher(jsonName).matches()) {
+                builder.addAnnotation(annotations[i]);
+            }
+        }
+    }
+
+    /**
+     * @return true if no field is generated for the json name
+     */
+    boolean skips(String jsonName) {
+        for (Pattern skipPattern : skipPatterns) {
+            if (skipPattern.matcher(jsonName).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
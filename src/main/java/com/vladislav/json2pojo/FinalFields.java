@@ -0,0 +1,56 @@
+package com.vladislav.json2pojo;
+
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
+import com.vladislav.json2pojo.pojo.TypeSpecBuilderWrapper;
+
+import javax.lang.model.element.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * makes instance fields of every generated class final and adds a constructor that sets all of them.
+ * Fields with an initializer, transient fields and lazily decoded fields, see {@link LazyFields}, are left as they are
+ */
+class FinalFields implements Consumer<TypeSpecBuilderWrapper> {
+
+    @Override
+    public void accept(TypeSpecBuilderWrapper wrapper) {
+        final List<FieldSpec> fieldSpecs = wrapper.typeSpec.fieldSpecs;
+        final MethodSpec.Builder constructor = MethodSpec.constructorBuilder();
+        for (int i = 0; i < fieldSpecs.size(); i++) {
+            final FieldSpec fieldSpec = fieldSpecs.get(i);
+            if (isSetByConstructor(fieldSpec) && !wrapper.lazyFields.containsKey(fieldSpec.name)) {
+                if (!fieldSpec.hasModifier(Modifier.FINAL)) {
+                    fieldSpecs.set(i, fieldSpec.toBuilder().addModifiers(Modifier.FINAL).build());
+                }
+                constructor.addParameter(fieldSpec.type, fieldSpec.name)
+                        .addStatement("this.$N = $N", fieldSpec.name, fieldSpec.name);
+            }
+        }
+        if (!constructor.parameters.isEmpty()) {
+            wrapper.typeSpec.addMethod(constructor.build());
+        }
+    }
+
+    /**
+     * @return final fields that are set by the constructor, in the order of its parameters.
+     * Empty if the class has no such fields and can be created with the default constructor
+     */
+    static List<FieldSpec> constructorFields(TypeSpec.Builder typeSpec) {
+        final List<FieldSpec> fieldSpecs = new ArrayList<>();
+        for (FieldSpec fieldSpec : typeSpec.fieldSpecs) {
+            if (fieldSpec.hasModifier(Modifier.FINAL) && isSetByConstructor(fieldSpec)) {
+                fieldSpecs.add(fieldSpec);
+            }
+        }
+        return fieldSpecs;
+    }
+
+    private static boolean isSetByConstructor(FieldSpec fieldSpec) {
+        return !fieldSpec.hasModifier(Modifier.STATIC) && !fieldSpec.hasModifier(Modifier.TRANSIENT)
+                && fieldSpec.initializer.isEmpty();
+    }
+}
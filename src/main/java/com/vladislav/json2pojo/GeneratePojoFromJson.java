@@ -1,245 +1,624 @@
 package com.vladislav.json2pojo;
 
 import com.google.gson.*;
+import com.google.gson.annotations.SerializedName;
 import com.squareup.javapoet.*;
+import com.vladislav.json2pojo.GenerationMetrics.Phase;
 import com.vladislav.json2pojo.pojo.ClassNameRef;
 import com.vladislav.json2pojo.pojo.TypeSpecBuilderWrapper;
 import lombok.RequiredArgsConstructor;
 
 import javax.lang.model.element.Modifier;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static com.vladislav.json2pojo.GenerationMetrics.record;
 import static com.vladislav.json2pojo.Utils.*;
 
+/**
+ * generates java classes from json samples.
+ * A built instance is immutable and thread-safe, every invocation keeps its state to itself,
+ * so one instance can serve any number of concurrent invocations as long as registered consumers are thread-safe.
+ * See {@link BatchGenerator} to run many invocations on a bounded pool
+ */
 @SuppressWarnings("unused")
 @RequiredArgsConstructor
 public class GeneratePojoFromJson {
 
+    private static final ClassName LIST = ClassName.get(List.class);
+    private static final ClassName OBJECT = ClassName.get(Object.class);
+
     private final int indent;
     private final FieldFactory fieldFactory;
-    private final List<Consumer<TypeSpecBuilderWrapper>> afterCreationClass;
-    private final List<Consumer<ClassNameRef>> beforeCreationClass;
+    private final ConsumerChain<TypeSpecBuilderWrapper> afterCreationClass;
+    private final ConsumerChain<ClassNameRef> beforeCreationClass;
+    private final ParallelJsonShapes parallelJsonShapes;  // null if inference is sequential
+    private final boolean deduplicateClasses;
+    private final boolean splitNestedClasses;
+    private final List<Consumer<GenerationMetrics>> metricsListeners;
+    private final ArraySampling arraySampling;
+    private final int maxDepth;  // objects and arrays nested deeper fail
+    private final Map<TypeName, TypeName> primitiveArrayTypes;  // by element type, empty if arrays are lists
+    private final ShapeTypes types;  // details of shapes that change generated types
+    private final List<TypeSpec> helperClasses;  // generated code refers to them, e.g. JsonBytes of streaming writers
 
     public static GeneratePojoFromJsonBuilder builder() {
         return new GeneratePojoFromJsonBuilder();
     }
 
     public JavaFile invoke(String packagePath, String className, String json) {
-        final JsonObject jsonObject = JsonParser.parseString(json).getAsJsonObject();
-        final TypeSpec.Builder typeSpecBuilder = jsonObjectToTypeSpec(packagePath, new ClassNameRef(className), jsonObject);
+        final GenerationMetrics metrics = newMetrics();
+        long start = System.nanoTime();
+        final ObjectShape objectShape;
+        if (parallelJsonShapes == null) {  // parsed while inferred, the same as a reader
+            objectShape = JsonShapes.read(new StringReader(json), arraySampling, maxDepth);
+        } else {  // arrays of the tree are split between tasks
+            final JsonObject jsonObject = parallelJsonShapes.parse(json);
+            start = record(metrics, Phase.PARSING, start);
+            objectShape = parallelJsonShapes.of(jsonObject);
+        }
+        record(metrics, Phase.INFERENCE, start);
+        return toJavaFile(packagePath, className, objectShape, metrics);
+    }
+
+    /**
+     * same as {@link #invoke(String, String, String)}, but reads json as a stream of tokens
+     * and never keeps the whole document in memory
+     */
+    public JavaFile invoke(String packagePath, String className, Reader reader) {
+        final GenerationMetrics metrics = newMetrics();
+        final long start = System.nanoTime();
+        final ObjectShape objectShape = JsonShapes.read(reader, arraySampling, maxDepth);
+        record(metrics, Phase.INFERENCE, start);
+        return toJavaFile(packagePath, className, objectShape, metrics);
+    }
+
+    /**
+     * same as {@link #invoke(String, String, Reader)}, input stream is decoded as UTF-8
+     */
+    public JavaFile invoke(String packagePath, String className, InputStream inputStream) {
+        return invoke(packagePath, className, new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * generates one class for all json documents, fields missing in some documents are nullable
+     */
+    public JavaFile invoke(String packagePath, String className, Iterator<String> jsons) {
+        final GenerationMetrics metrics = newMetrics();
+        final long start = System.nanoTime();
+        final ObjectShape objectShape = parallelJsonShapes != null ? parallelJsonShapes.readAll(jsons)
+                : JsonSchema.of(jsons, arraySampling, maxDepth).shape;
+        record(metrics, Phase.INFERENCE, start);
+        return toJavaFile(packagePath, className, objectShape, metrics);
+    }
+
+    public JavaFile invoke(String packagePath, String className, Stream<String> jsons) {
+        return invoke(packagePath, className, jsons.iterator());
+    }
+
+    /**
+     * generates one class for all objects of newline delimited json
+     */
+    public JavaFile invokeNdjson(String packagePath, String className, Path path) throws IOException {
+        final GenerationMetrics metrics = newMetrics();
+        final long start = System.nanoTime();
+        final ObjectShape objectShape = JsonSchema.ofNdjson(path, arraySampling, maxDepth).shape;
+        record(metrics, Phase.INFERENCE, start);
+        return toJavaFile(packagePath, className, objectShape, metrics);
+    }
+
+    /**
+     * generates one class for all objects of the file, the file is either a json object or newline delimited json.
+     * The file is memory-mapped and scanned as UTF-8 bytes, see {@link JsonSchema#ofFile(Path)},
+     * inference is always sequential
+     */
+    public JavaFile invoke(String packagePath, String className, Path path) throws IOException {
+        final GenerationMetrics metrics = newMetrics();
+        final long start = System.nanoTime();
+        final ObjectShape objectShape = JsonSchema.ofFile(path, arraySampling, maxDepth).shape;
+        record(metrics, Phase.INFERENCE, start);
+        return toJavaFile(packagePath, className, objectShape, metrics);
+    }
+
+    /**
+     * generates one class for all objects of all files, each file is either a json object or newline delimited json
+     */
+    public JavaFile invokeFiles(String packagePath, String className, List<Path> paths) throws IOException {
+        final GenerationMetrics metrics = newMetrics();
+        final long start = System.nanoTime();
+        final ObjectShape objectShape = inferFiles(paths);
+        record(metrics, Phase.INFERENCE, start);
+        return toJavaFile(packagePath, className, objectShape, metrics);
+    }
+
+    public JavaFile invokeNdjson(String packagePath, String className, Reader reader) {
+        final GenerationMetrics metrics = newMetrics();
+        final long start = System.nanoTime();
+        final ObjectShape objectShape = JsonShapes.readAll(reader, arraySampling, maxDepth);
+        record(metrics, Phase.INFERENCE, start);
+        return toJavaFile(packagePath, className, objectShape, metrics);
+    }
+
+    public JavaFile invoke(String packagePath, String className, JsonSchema schema) {
+        return toJavaFile(packagePath, className, schema.shape, newMetrics());
+    }
+
+    ObjectShape infer(Reader reader) {
+        return JsonShapes.read(reader, arraySampling, maxDepth);
+    }
+
+    /**
+     * @return fingerprint that tells apart only shapes this generator generates differently, see {@link ShapeTypes}
+     */
+    long fingerprint(ObjectShape objectShape) {
+        return ShapeFingerprints.of(objectShape, new IdentityHashMap<>(), types);
+    }
+
+    boolean isSameShape(ObjectShape shape1, ObjectShape shape2) {
+        return ShapeFingerprints.isSameShape(shape1, shape2, types);
+    }
+
+    ObjectShape inferFiles(List<Path> paths) throws IOException {
+        if (parallelJsonShapes != null) {
+            return parallelJsonShapes.readAll(paths);
+        }
+        return JsonSchema.ofFiles(paths, arraySampling, maxDepth).shape;
+    }
+
+    /**
+     * renders classes straight into the sink, the rendered source is never kept in memory as a whole.
+     * If nested classes are split (see {@link GeneratePojoFromJsonBuilder#splitNestedClasses(boolean)})
+     * every class is written as soon as it is generated, so only classes on the current path stay in memory
+     */
+    public void writeTo(String packagePath, String className, JsonSchema schema, JavaFileSink sink)
+            throws IOException {
+        writeTo(packagePath, className, schema.shape, sink, newMetrics());
+    }
+
+    /**
+     * same as {@link #writeTo(String, String, JsonSchema, JavaFileSink)}, json is read as a stream of tokens
+     */
+    public void writeTo(String packagePath, String className, Reader reader, JavaFileSink sink) throws IOException {
+        final GenerationMetrics metrics = newMetrics();
+        final long start = System.nanoTime();
+        final ObjectShape objectShape = JsonShapes.read(reader, arraySampling, maxDepth);
+        record(metrics, Phase.INFERENCE, start);
+        writeTo(packagePath, className, objectShape, sink, metrics);
+    }
+
+    private void writeTo(String packagePath, String className, ObjectShape objectShape, JavaFileSink sink,
+                         GenerationMetrics metrics) throws IOException {
+        final GenerationContext context = newContext(splitNestedClasses ? sink : null, metrics);
+        long start = System.nanoTime();
+        final TypeSpec typeSpec;
+        try {
+            final TypeSpec.Builder typeSpecBuilder = jsonObjectToTypeSpec(packagePath, new ClassNameRef(className),
+                    objectShape, context);
+            addHelperClasses(packagePath, typeSpecBuilder, context);
+            typeSpec = typeSpecBuilder.build();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        start = record(metrics, Phase.CLASS_GENERATION, start);
+        sink.write(context.toJavaFile(packagePath, typeSpec));
+        record(metrics, Phase.RENDERING, start);
+        publish(metrics, objectShape);
+    }
+
+    private JavaFile toJavaFile(String packagePath, String className, ObjectShape objectShape,
+                                GenerationMetrics metrics) {
+        final GenerationContext context = newContext(null, metrics);
+        final long start = System.nanoTime();
+        final TypeSpec.Builder typeSpecBuilder = jsonObjectToTypeSpec(packagePath, new ClassNameRef(className), objectShape,
+                context);
+        addHelperClasses(packagePath, typeSpecBuilder, context);
         final TypeSpec typeSpec = typeSpecBuilder.build();
-        final JavaFile javaFile = JavaFile.builder(packagePath, typeSpec)
-                .indent(" ".repeat(indent))
-                .build();
+        final JavaFile javaFile = context.toJavaFile(packagePath, typeSpec);
+        record(metrics, Phase.CLASS_GENERATION, start);
+        publish(metrics, objectShape);
         return javaFile;
     }
 
-    private TypeSpec.Builder jsonObjectToTypeSpec(String packagePath, ClassNameRef className, JsonObject jsonObject) {
-        TypeSpec.Builder classBuilder;
-        if (!isValidClassName(className.className)) {
-            className.className = toCamelCase(className.className, false);
+    private GenerationContext newContext(JavaFileSink sink, GenerationMetrics metrics) {
+        final GenerationContext context = new GenerationContext(fieldFactory, beforeCreationClass, afterCreationClass,
+                types, deduplicateClasses, sink, " ".repeat(indent), metrics);
+        if (context.isSplit()) {  // helper classes keep their names, generated classes of the same name are numbered
+            helperClasses.forEach(helperClass -> context.uniqueTopLevelName(helperClass.name));
+        }
+        return context;
+    }
+
+    /**
+     * declares helper classes as static nested classes of the top-level class, or writes them as top-level ones
+     * if classes are split
+     */
+    private void addHelperClasses(String packagePath, TypeSpec.Builder typeSpecBuilder, GenerationContext context) {
+        for (TypeSpec helperClass : helperClasses) {
+            if (context.isSplit()) {
+                context.write(packagePath, helperClass);
+            } else {
+                typeSpecBuilder.addType(helperClass.toBuilder().addModifiers(Modifier.STATIC).build());
+            }
+        }
+    }
+
+    private GenerationMetrics newMetrics() {
+        return metricsListeners.isEmpty() ? null : new GenerationMetrics();
+    }
+
+    private void publish(GenerationMetrics metrics, ObjectShape objectShape) {
+        if (metrics != null) {
+            metrics.addArrayElements(objectShape);
+            metricsListeners.forEach(listener -> listener.accept(metrics));
         }
+    }
+
+    /**
+     * generates the class of the object and classes of all objects nested in it without recursion.
+     * Classes on the path from the top-level one are kept as a chain of frames,
+     * a class waits in its frame while the class of its current field is generated
+     */
+    private TypeSpec.Builder jsonObjectToTypeSpec(String packagePath, ClassNameRef className, ObjectShape objectShape,
+                                                  GenerationContext context) {
+        ClassFrame frame = new ClassFrame(null, packagePath, className, objectShape);
+        openClass(frame, context);
+        while (true) {
+            addFields(frame, context);
+            if (frame.nested != null) {
+                frame = frame.nested;
+                openClass(frame, context);
+                continue;
+            }
+            final TypeSpec.Builder classBuilder = closeClass(frame, context);
+            if (frame.parent == null) {
+                return classBuilder;
+            }
+            final ClassName localClassName = declareNestedClass(frame, classBuilder, context);
+            frame = frame.parent;
+            frame.nested = null;
+            final TypeName type = frame.waitingArrays < 0 ? localClassName
+                    : listOf(ParameterizedTypeName.get(LIST, localClassName), frame.waitingArrays);
+            addField(frame, context.fieldFactory.createField(type, frame.waitingField), frame.waitingField);
+        }
+    }
+
+    private void openClass(ClassFrame frame, GenerationContext context) {
+        final ClassNameRef className = frame.className;
+        className.className = toClassName(className.className);
         final ClassNameRef classNameRef = new ClassNameRef(className.className);
-        beforeCreationClass.forEach(consumer -> consumer.accept(classNameRef));
+        context.enterClass();
+        context.beforeCreationClass.accept(classNameRef);
+        if (context.isSplit()) {
+            classNameRef.className = context.uniqueTopLevelName(classNameRef.className);
+        }
         className.className = classNameRef.className;
+        frame.classNameRef = classNameRef;
+        frame.classBuilder = TypeSpec.classBuilder(className.className);
+    }
 
-        classBuilder = TypeSpec.classBuilder(className.className);
-        for (Map.Entry<String, JsonElement> entry : jsonObject.entrySet()) {
+    /**
+     * adds the rest of the fields, stops at a field that needs a nested class not generated yet.
+     * The field waits for {@link ClassFrame#nested} then
+     */
+    private void addFields(ClassFrame frame, GenerationContext context) {
+        while (frame.fields.hasNext()) {
+            final Map.Entry<String, JsonShape> entry = frame.fields.next();
             final String fieldName = entry.getKey();
-            final JsonElement jsonElement = entry.getValue();
+            if (context.fieldFactory.rules.skips(fieldName)) {
+                continue;
+            }
+            final JsonShape jsonShape = entry.getValue();
             FieldSpec fieldSpec;
-            switch (determineTypeOfJsonElement(jsonElement)) {
+            switch (jsonShape.getType()) {
                 case PRIMITIVE:
-                    final JsonPrimitive jsonPrimitive = jsonElement.getAsJsonPrimitive();
-                    fieldSpec = jsonPrimitiveToFieldSpec(fieldName, jsonPrimitive);
+                    final ValueFormat format = types.stringFormat((PrimitiveShape) jsonShape);
+                    if (format != null) {
+                        fieldSpec = context.fieldFactory.createField(format.type, fieldName);
+                        if (format == ValueFormat.BASE64) {
+                            frame.base64Fields.add(fieldSpec.name);
+                        }
+                        break;
+                    }
+                    final ClassName enumName = jsonStringsToEnum(fieldName, (PrimitiveShape) jsonShape,
+                            frame.classBuilder, frame.packagePath, frame.className, context);
+                    if (enumName != null) {
+                        fieldSpec = context.fieldFactory.createField(enumName, fieldName);
+                        frame.enumFields.add(fieldSpec.name);
+                        break;
+                    }
+                    fieldSpec = jsonPrimitiveToFieldSpec(fieldName, (PrimitiveShape) jsonShape,
+                            frame.objectShape.isNullable(fieldName), context);
                     break;
                 case OBJECT:
-                    final ClassNameRef nestedClassName = new ClassNameRef(capitalize(fieldName));
-                    final JsonObject localJsonObject = jsonElement.getAsJsonObject();
-                    final TypeSpec.Builder typeSpec = jsonObjectToTypeSpec(packagePath + "." + className.className,
-                            nestedClassName, localJsonObject);
-                    typeSpec.addModifiers(Modifier.STATIC);
-                    classBuilder.addType(typeSpec.build());
-                    final ClassName localClassName = ClassName.get(packagePath + "." + className.className,
-                            nestedClassName.className);
-                    fieldSpec = fieldFactory.createField(localClassName, fieldName);
+                    final ClassName localClassName = sharedClass((ObjectShape) jsonShape, context);
+                    if (localClassName == null) {
+                        frame.waitFor(fieldName, -1, (ObjectShape) jsonShape, context.isSplit());
+                        return;
+                    }
+                    fieldSpec = context.fieldFactory.createField(localClassName, fieldName);
                     break;
                 case ARRAY:
-                    final JsonArray jsonArray = jsonElement.getAsJsonArray();
-                    fieldSpec = jsonArrayToFieldSpec(fieldName, jsonArray, classBuilder, packagePath, className);
+                    if (!((ArrayShape) jsonShape).isSameType()) {
+                        fieldSpec = context.fieldFactory.createObjectField(fieldName);
+                        break;
+                    }
+                    final TypeName listType = jsonArrayToTypeName(fieldName, (ArrayShape) jsonShape, frame, context);
+                    if (listType == null) {
+                        return;
+                    }
+                    fieldSpec = context.fieldFactory.createField(listType, fieldName);
                     break;
                 default:
-                    fieldSpec = fieldFactory.createObjectField(fieldName);
+                    fieldSpec = context.fieldFactory.createObjectField(fieldName);
             }
-            classBuilder.addField(fieldSpec);
+            addField(frame, fieldSpec, fieldName);
         }
-        afterCreationClass.forEach(consumer -> consumer.accept(new TypeSpecBuilderWrapper(fieldFactory, classBuilder, classNameRef.className)));
-        return classBuilder;
     }
 
-    private FieldSpec jsonArrayToFieldSpec(String fieldName, JsonArray jsonArray, TypeSpec.Builder classBuilder,
-                                           String packagePath, ClassNameRef className) {
-        FieldSpec fieldSpec;
-        boolean isSameType = true;
-        Set<JsonElementType> jsonElementsType = new HashSet<>();
-        List<JsonElement> jsonElements = new ArrayList<>();
-        for (JsonElement element : jsonArray) {
-            final JsonElementType type = determineTypeOfJsonElement(element);
-            if (!jsonElements.isEmpty()) {
-                if (type == JsonElementType.NULL) {
-                    continue;
-                } else if (!jsonElementsType.contains(type)) {
-                    isSameType = false;
-                    break;
-                }
+    private static void addField(ClassFrame frame, FieldSpec fieldSpec, String fieldName) {
+        frame.classBuilder.addField(fieldSpec);
+        frame.jsonNames.put(fieldSpec.name, fieldName);
+    }
+
+    private static TypeSpec.Builder closeClass(ClassFrame frame, GenerationContext context) {
+        if (!context.afterCreationClass.isEmpty()) {  // consumers share one wrapper, its fields are final
+            context.afterCreationClass.accept(new TypeSpecBuilderWrapper(context.fieldFactory, frame.classBuilder,
+                    frame.classNameRef.className, frame.jsonNames, frame.enumFields, frame.base64Fields));
+        }
+        context.exitClass();
+        return frame.classBuilder;
+    }
+
+    /**
+     * @return class already generated for the same shape if classes are deduplicated, otherwise null
+     */
+    private static ClassName sharedClass(ObjectShape objectShape, GenerationContext context) {
+        return context.nestedClasses != null ? context.nestedClasses.get(objectShape) : null;
+    }
+
+    /**
+     * declares the generated class as a static nested class of its parent, or writes it as a top-level one
+     * if classes are split
+     */
+    private static ClassName declareNestedClass(ClassFrame frame, TypeSpec.Builder classBuilder,
+                                                GenerationContext context) {
+        if (context.isSplit()) {  // nested class becomes a top-level class of the same package
+            context.write(frame.packagePath, classBuilder.build());
+        } else {
+            classBuilder.addModifiers(Modifier.STATIC);
+            frame.parent.classBuilder.addType(classBuilder.build());
+        }
+        final ClassName localClassName = ClassName.get(frame.packagePath, frame.className.className);
+        if (context.nestedClasses != null) {
+            context.nestedClasses.put(frame.objectShape, localClassName);
+        }
+        return localClassName;
+    }
+
+    /**
+     * generates an enum of the values of strings next to nested classes,
+     * constants that differ from their values are annotated for gson.
+     * Returns null if the strings don't look like constants or some value can't be made a constant
+     */
+    private ClassName jsonStringsToEnum(String fieldName, PrimitiveShape primitiveShape, TypeSpec.Builder classBuilder,
+                                        String packagePath, ClassNameRef className, GenerationContext context) {
+        final List<String> values = types.enumValues(primitiveShape);
+        if (values.isEmpty()) {
+            return null;
+        }
+        final Map<String, String> constants = new LinkedHashMap<>();  // constant name -> value
+        for (String value : values) {
+            final String constantName = toConstantName(value);
+            if (constantName == null || constants.put(constantName, value) != null) {
+                return null;
             }
-            jsonElements.add(element);
-            jsonElementsType.add(type);
-        }
-        if (isSameType) {
-            final JsonElementType type;
-            final Iterator<JsonElementType> iterator = jsonElementsType.iterator();
-            if (iterator.hasNext()) {
-                type = iterator.next();
-            } else {
-                type = JsonElementType.OBJECT;
+        }
+        String enumName = toClassName(capitalize(fieldName));
+        if (context.isSplit()) {
+            enumName = context.uniqueTopLevelName(enumName);
+        }
+        final ClassName self = ClassName.get("", enumName);
+        final TypeSpec.Builder enumBuilder = TypeSpec.enumBuilder(enumName)
+                .addField(String.class, "value", Modifier.FINAL)
+                .addMethod(MethodSpec.constructorBuilder()
+                        .addParameter(String.class, "value")
+                        .addStatement("this.value = value")
+                        .build());
+        final MethodSpec.Builder of = MethodSpec.methodBuilder("of")
+                .addJavadoc("@return constant of the value, null if there is none\n")
+                .addModifiers(Modifier.STATIC)
+                .returns(self)
+                .addParameter(String.class, "value")
+                .beginControlFlow("switch (value)");
+        for (Map.Entry<String, String> constant : constants.entrySet()) {
+            final TypeSpec.Builder constantBuilder = TypeSpec.anonymousClassBuilder("$S", constant.getValue());
+            if (!constant.getKey().equals(constant.getValue())) {
+                constantBuilder.addAnnotation(AnnotationSpec.builder(SerializedName.class)
+                        .addMember("value", "$S", constant.getValue())
+                        .build());
             }
+            enumBuilder.addEnumConstant(constant.getKey(), constantBuilder.build());
+            of.addCode("case $S:\n$>", constant.getValue())
+                    .addStatement("return $L", constant.getKey())
+                    .addCode("$<");
+        }
+        enumBuilder.addMethod(of.addCode("default:\n$>")
+                .addStatement("return null")
+                .addCode("$<")
+                .endControlFlow()
+                .build());
+        if (context.isSplit()) {
+            context.write(packagePath, enumBuilder.build());
+            return ClassName.get(packagePath, enumName);
+        }
+        classBuilder.addType(enumBuilder.build());
+        return ClassName.get(packagePath + "." + className.className, enumName);
+    }
+
+    /**
+     * @return list of the element type, nested arrays give nested lists. Numbers and booleans without nulls
+     * give primitive arrays instead if they are enabled, strings of a detected format give a list of the format.
+     * Null if elements are objects whose class is not generated yet, the field waits for it in the frame then
+     */
+    private TypeName jsonArrayToTypeName(String fieldName, ArrayShape arrayShape, ClassFrame frame,
+                                         GenerationContext context) {
+        int arrays = 0;  // arrays nested in the given one
+        while (arrayShape.isSameType() && arrayShape.getElementType() == JsonElementType.ARRAY) {
+            arrayShape = arrayShape.getElements() != null ? arrayShape.getElements() : new ArrayShape();
+            arrays++;
+        }
+        TypeName elementType = OBJECT;
+        if (arrayShape.isSameType()) {
+            final JsonElementType type = arrayShape.getElementType() != null ? arrayShape.getElementType()
+                    : JsonElementType.OBJECT;
             switch (type) {
                 case PRIMITIVE:
-                    final List<JsonPrimitive> jsonPrimitives = jsonElements.stream()
-                            .map(JsonElement::getAsJsonPrimitive)
-                            .collect(Collectors.toList());
-                    final Set<JsonPrimitiveType> jsonPrimitiveTypes = jsonPrimitives.stream()
-                            .map(Utils::determineTypeOfJsonPrimitive).collect(Collectors.toSet());
-                    if (jsonPrimitiveTypes.size() == 1) {
-                        final JsonPrimitiveType primitiveType = jsonPrimitiveTypes.iterator().next();
-                        switch (primitiveType) {
-                            case BOOLEAN:
-                                fieldSpec = fieldFactory.createField(
-                                        ParameterizedTypeName.get(List.class, Boolean.class), fieldName);
-                                break;
-                            case NUMBER:
-                                final List<Number> numbers = jsonPrimitives.stream()
-                                        .map(JsonPrimitive::getAsNumber).collect(Collectors.toList());
-                                final Set<NumberType> numberTypes = numbers.stream()
-                                        .map(Utils::determineTypeOfNumber).collect(Collectors.toSet());
-                                if (numberTypes.size() == 1) {
-                                    final NumberType numberType = numberTypes.iterator().next();
-                                    switch (numberType) {
-                                        case INT:
-                                            fieldSpec = fieldFactory.createField(
-                                                    ParameterizedTypeName.get(List.class, Integer.class),
-                                                    fieldName);
-                                            break;
-                                        case LONG:
-                                            fieldSpec = fieldFactory.createField(
-                                                    ParameterizedTypeName.get(List.class, Long.class),
-                                                    fieldName);
-                                            break;
-                                        default:
-                                            fieldSpec = fieldFactory.createField(
-                                                    ParameterizedTypeName.get(List.class, Double.class),
-                                                    fieldName);
-                                    }
-                                } else {
-                                    if (numberTypes.contains(NumberType.DOUBLE)) {
-                                        fieldSpec = fieldFactory.createField(
-                                                ParameterizedTypeName.get(List.class, Double.class),
-                                                fieldName);
-                                    } else {
-                                        fieldSpec = fieldFactory.createField(
-                                                ParameterizedTypeName.get(List.class, Long.class),
-                                                fieldName);
-                                    }
-                                }
-                                break;
-                            default:
-                                fieldSpec = fieldFactory.createField(
-                                        ParameterizedTypeName.get(List.class, String.class),
-                                        fieldName);
-                                break;
+                    final JsonPrimitiveType primitiveType = arrayShape.getPrimitiveType();
+                    final ValueFormat format = types.stringFormat(arrayShape);
+                    if (format != null) {
+                        elementType = format.type;
+                    } else if (primitiveType != null) {
+                        elementType = primitiveToBoxedTypeName(primitiveType, arrayShape.getNumberType());
+                        final TypeName primitiveArrayType = arrayShape.isNullable() || !elementType.isBoxedPrimitive()
+                                ? null : primitiveArrayTypes.get(elementType.unbox());
+                        if (primitiveArrayType != null) {
+                            return listOf(primitiveArrayType, arrays);
                         }
-                    } else {
-                        fieldSpec = fieldFactory.createField(
-                                ParameterizedTypeName.get(List.class, Object.class),
-                                fieldName);
                     }
                     break;
                 case OBJECT:
-                    final List<JsonObject> jsonObjects = jsonElements.stream()
-                            .map(JsonElement::getAsJsonObject)
-                            .collect(Collectors.toList());
-                    final List<Set<Map.Entry<String, JsonElement>>> entryStream = jsonObjects.stream()
-                            .map(JsonObject::entrySet).collect(Collectors.toList());
-                    if (entryStream.stream().map(Set::size).collect(Collectors.toSet()).size() == 1) {
-                        final Set<String> fields = entryStream.stream().flatMap(Collection::stream)
-                                .map(Map.Entry::getKey)
-                                .collect(Collectors.toSet());
-                        final JsonObject next = jsonObjects.iterator().next();
-                        if (fields.size() == next.entrySet().size()) {  // we only made sure that all objects have the same fields, but we didn't make sure they had the same type.
-                            final ClassNameRef nestedClassName2 = new ClassNameRef(capitalize(fieldName));
-                            final TypeSpec.Builder typeSpec2 = jsonObjectToTypeSpec(packagePath + "." + className.className,
-                                    nestedClassName2, next);
-                            typeSpec2.addModifiers(Modifier.STATIC);
-                            classBuilder.addType(typeSpec2.build());
-                            final ClassName localClassName2 = ClassName.get(
-                                    packagePath + "." + className.className, nestedClassName2.className);
-                            fieldSpec = fieldFactory.createField(
-                                    ParameterizedTypeName.get(ClassName.get(List.class), localClassName2), fieldName);
-                        } else {
-                            fieldSpec = fieldFactory.createField(
-                                    ParameterizedTypeName.get(List.class, Object.class),
-                                    fieldName);
+                    final ObjectShape objects = arrayShape.getObjects();  // fields missing in some objects are nullable
+                    if (objects != null) {
+                        elementType = sharedClass(objects, context);
+                        if (elementType == null) {
+                            frame.waitFor(fieldName, arrays, objects, context.isSplit());
+                            return null;
                         }
-                    } else {
-                        fieldSpec = fieldFactory.createField(
-                                ParameterizedTypeName.get(List.class, Object.class),
-                                fieldName);
                     }
                     break;
-                default:
-                    // todo: implement JsonArray case
-                    final List<JsonArray> jsonArrays = jsonElements.stream()
-                            .map(JsonElement::getAsJsonArray)
-                            .collect(Collectors.toList());
-
-                    fieldSpec = fieldFactory.createField(
-                            ParameterizedTypeName.get(ClassName.get(List.class),
-                                    ParameterizedTypeName.get(List.class, Object.class)), fieldName);
-                    break;
             }
-        } else {
-            fieldSpec = fieldFactory.createObjectField(fieldName);
         }
-        return fieldSpec;
+        return listOf(ParameterizedTypeName.get(LIST, elementType), arrays);
     }
 
-    private FieldSpec jsonPrimitiveToFieldSpec(String fieldName, JsonPrimitive jsonPrimitive) {
+    /**
+     * @return the type wrapped in lists as many times as given, arrays of primitive arrays are arrays too
+     */
+    private static TypeName listOf(TypeName type, int arrays) {
+        for (int i = 0; i < arrays; i++) {
+            type = type instanceof ArrayTypeName ? ArrayTypeName.of(type) : ParameterizedTypeName.get(LIST, type);
+        }
+        return type;
+    }
+
+    private TypeName primitiveToBoxedTypeName(JsonPrimitiveType primitiveType, NumberType numberType) {
+        switch (primitiveType) {
+            case BOOLEAN:
+                return ClassName.get(Boolean.class);
+            case NUMBER:
+                switch (types.numberType(numberType)) {
+                    case BYTE:
+                        return ClassName.get(Byte.class);
+                    case SHORT:
+                        return ClassName.get(Short.class);
+                    case INT:
+                        return ClassName.get(Integer.class);
+                    case LONG:
+                        return ClassName.get(Long.class);
+                    case BIG_INTEGER:
+                        return ValueFormat.BIG_INTEGER.type;
+                    case BIG_DECIMAL:
+                        return ValueFormat.BIG_DECIMAL.type;
+                    default:
+                        return ClassName.get(Double.class);
+                }
+            default:
+                return ClassName.get(String.class);
+        }
+    }
+
+    private FieldSpec jsonPrimitiveToFieldSpec(String fieldName, PrimitiveShape primitiveShape, boolean nullable,
+                                               GenerationContext context) {
         FieldSpec fieldSpec;
-        switch (determineTypeOfJsonPrimitive(jsonPrimitive)) {
+        switch (primitiveShape.primitiveType) {
             case NUMBER:
-                final Number number = jsonPrimitive.getAsNumber();
-                switch (determineTypeOfNumber(number)) {
+                switch (types.numberType(primitiveShape.numberType)) {
+                    case BYTE:
+                        fieldSpec = context.fieldFactory.createByteField(fieldName, nullable);
+                        break;
+                    case SHORT:
+                        fieldSpec = context.fieldFactory.createShortField(fieldName, nullable);
+                        break;
                     case INT:
-                        fieldSpec = fieldFactory.createDoubleField(fieldName);
+                        fieldSpec = context.fieldFactory.createIntField(fieldName, nullable);
                         break;
                     case LONG:
-                        fieldSpec = fieldFactory.createLongField(fieldName);
+                        fieldSpec = context.fieldFactory.createLongField(fieldName, nullable);
+                        break;
+                    case BIG_INTEGER:
+                        fieldSpec = context.fieldFactory.createField(ValueFormat.BIG_INTEGER.type, fieldName);
+                        break;
+                    case BIG_DECIMAL:
+                        fieldSpec = context.fieldFactory.createField(ValueFormat.BIG_DECIMAL.type, fieldName);
                         break;
                     default:
-                        fieldSpec = fieldFactory.createIntField(fieldName);
+                        fieldSpec = context.fieldFactory.createDoubleField(fieldName, nullable);
                 }
                 break;
             case BOOLEAN:
-                fieldSpec = fieldFactory.createBooleanField(fieldName);
+                fieldSpec = context.fieldFactory.createBooleanField(fieldName, nullable);
                 break;
             default:
-                fieldSpec = fieldFactory.createField(TypeName.get(String.class), fieldName);
+                fieldSpec = context.fieldFactory.createField(TypeName.get(String.class), fieldName);
                 break;
         }
         return fieldSpec;
     }
 
+    /**
+     * class being generated, frames of the enclosing classes are linked through parent
+     */
+    private static final class ClassFrame {
+        final ClassFrame parent;
+        final String packagePath;  // package, or the enclosing class if the class is nested
+        final ClassNameRef className;  // unique name once the class is open
+        final ObjectShape objectShape;
+        final Iterator<Map.Entry<String, JsonShape>> fields;
+        final Map<String, String> jsonNames = new HashMap<>();
+        final Set<String> enumFields = new HashSet<>();
+        final Set<String> base64Fields = new HashSet<>();
+        ClassNameRef classNameRef;  // name given to consumers
+        TypeSpec.Builder classBuilder;
+        ClassFrame nested;  // class the waiting field needs, null if no field waits
+        String waitingField;
+        int waitingArrays;  // lists around the nested class in the type of the waiting field, -1 if it is no array
+
+        ClassFrame(ClassFrame parent, String packagePath, ClassNameRef className, ObjectShape objectShape) {
+            this.parent = parent;
+            this.packagePath = packagePath;
+            this.className = className;
+            this.objectShape = objectShape;
+            fields = objectShape.fields.entrySet().iterator();
+        }
+
+        /**
+         * the field waits for the class of the object, which is nested in this class or, if classes are split,
+         * becomes a top-level class of the same package
+         */
+        void waitFor(String fieldName, int arrays, ObjectShape objectShape, boolean split) {
+            waitingField = fieldName;
+            waitingArrays = arrays;
+            nested = new ClassFrame(this, split ? packagePath : packagePath + "." + className.className,
+                    new ClassNameRef(capitalize(fieldName)), objectShape);
+        }
+    }
 }
@@ -1,33 +1,65 @@
 package com.vladislav.json2pojo;
 
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.TypeName;
 import com.vladislav.json2pojo.pojo.ClassNameRef;
 import com.vladislav.json2pojo.pojo.FieldNameRef;
 import com.vladislav.json2pojo.pojo.FieldSpecBuilderWrapper;
 import com.vladislav.json2pojo.pojo.TypeSpecBuilderWrapper;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 @SuppressWarnings("unused")
 public class GeneratePojoFromJsonBuilder {
+    private static final int COMPACT_ENUM_VALUES = 16;
 
     private int indent;
     private boolean usePrimitiveDataTypesInsteadBoxed;
     private boolean useDoubleNumbers;
     private boolean useLongIntegers;
+    private boolean usePrimitiveArrays;
+    private boolean compactLayout;
+    private int maxEnumValues;
+    private List<ValueFormat> valueFormats;
+    private final Map<TypeName, TypeName> primitiveCollections;
+    private ForkJoinPool forkJoinPool;
+    private int parallelThreshold;
+    private boolean deduplicateClasses;
+    private boolean splitNestedClasses;
+    private boolean streamingReaders;
+    private boolean streamingWriters;
+    private boolean lazyNested;
+    private ArraySampling arraySampling;
+    private int maxDepth;
     private final List<Consumer<FieldSpecBuilderWrapper>> afterFieldCreationConsumers;
     private final List<Consumer<TypeSpecBuilderWrapper>> afterCreationClass;
     private final List<Consumer<FieldNameRef>> beforeFieldCreationConsumers;
     private final List<Consumer<ClassNameRef>> beforeCreationClass;
+    private final List<Consumer<GenerationMetrics>> metricsListeners;
+    private final List<Pair<Pattern, String>> fieldRenames;
+    private final List<Pair<Pattern, AnnotationSpec>> fieldAnnotations;
+    private final List<Pattern> skippedFields;
 
     GeneratePojoFromJsonBuilder() {
         indent = 4;
+        parallelThreshold = 1024;
+        arraySampling = ArraySampling.all();
+        maxDepth = ShapeFrame.DEFAULT_MAX_DEPTH;
         afterFieldCreationConsumers = new ArrayList<>();
         afterCreationClass = new ArrayList<>();
         beforeFieldCreationConsumers = new ArrayList<>();
         beforeCreationClass = new ArrayList<>();
+        metricsListeners = new ArrayList<>();
+        fieldRenames = new ArrayList<>();
+        fieldAnnotations = new ArrayList<>();
+        skippedFields = new ArrayList<>();
+        primitiveCollections = new HashMap<>();
+        maxEnumValues = -1;  // not set, enums are detected only in compact layout
+        valueFormats = List.of();
         useBoxedPrimitive();
     }
 
@@ -51,6 +83,67 @@ public class GeneratePojoFromJsonBuilder {
         return this;
     }
 
+    /**
+     * arrays of numbers or booleans without nulls become {@code int[]}, {@code long[]}, {@code double[]}
+     * or {@code boolean[]} instead of lists of boxed values, arrays of such arrays become {@code int[][]} and so on
+     */
+    public GeneratePojoFromJsonBuilder usePrimitiveArrays(boolean state) {
+        usePrimitiveArrays = state;
+        return this;
+    }
+
+    /**
+     * arrays of the primitive become the given type instead of a primitive array, e.g. a primitive list
+     * of some collections library. Takes effect only with {@link #usePrimitiveArrays(boolean)} or compact layout.
+     * Streaming readers skip fields of such types and streaming writers write them with Gson
+     */
+    public GeneratePojoFromJsonBuilder usePrimitiveCollection(TypeName primitiveType, TypeName collectionType) {
+        if (!primitiveType.isPrimitive()) {
+            throw new IllegalArgumentException("Not a primitive type: " + primitiveType);
+        }
+        primitiveCollections.put(primitiveType, collectionType);
+        return this;
+    }
+
+    /**
+     * generated classes take less memory per instance: fields are final and set by a constructor,
+     * numbers get the narrowest primitive type that holds every sampled value, down to {@code byte},
+     * arrays become primitive arrays as with {@link #usePrimitiveArrays(boolean)} and strings with
+     * up to 16 distinct values become enums, unless {@link #detectEnums(int)} says otherwise.
+     * Only nullable fields stay boxed, {@link #useDoubleNumbers(boolean)} and {@link #useLongIntegers(boolean)}
+     * are ignored. Fields are made final after all consumers added with {@link #addAfterCreationClass(Consumer)}
+     */
+    public GeneratePojoFromJsonBuilder useCompactLayout(boolean state) {
+        compactLayout = state;
+        return this;
+    }
+
+    /**
+     * string fields whose samples have at most the given number of distinct values become nested enums,
+     * if the values repeat in the samples and every value can be made a constant name.
+     * Distinct values are counted up to 64, 0 turns enums off
+     */
+    public GeneratePojoFromJsonBuilder detectEnums(int maxValues) {
+        if (maxValues < 0 || maxValues > ValueDomain.MAX_VALUES) {
+            throw new IllegalArgumentException("Max enum values must be from 0 to " + ValueDomain.MAX_VALUES);
+        }
+        maxEnumValues = maxValues;
+        return this;
+    }
+
+    /**
+     * strings and numbers whose every sampled value has one of the formats get the type of the format,
+     * e.g. {@code Instant} or {@code UUID}, see {@link ValueFormat}. Formats are tried in the given order,
+     * so a date-time in UTC becomes {@code Instant} only if it is given before {@code OFFSET_DATE_TIME}.
+     * Formats win over enums, no formats are detected by default.
+     * Reflective Gson needs type adapters for java.time types and base64 arrays,
+     * streaming readers and writers handle them on their own
+     */
+    public GeneratePojoFromJsonBuilder detectValueFormats(ValueFormat... formats) {
+        valueFormats = List.of(formats);
+        return this;
+    }
+
     public GeneratePojoFromJsonBuilder addAfterFieldCreationConsumers(Consumer<FieldSpecBuilderWrapper> consumer) {
         afterFieldCreationConsumers.add(consumer);
         return this;
@@ -71,6 +164,147 @@ public class GeneratePojoFromJsonBuilder {
         return this;
     }
 
+    /**
+     * json names are changed like {@link String#replaceAll(String, String)} before they are made field names.
+     * Rename rules run in the order they are added and before consumers added with
+     * {@link #addBeforeFieldCreationConsumers(Consumer)}. Rules are applied by the field factory itself,
+     * so they are cheaper than consumers that do the same
+     */
+    public GeneratePojoFromJsonBuilder renameFields(String regex, String replacement) {
+        fieldRenames.add(Pair.of(Pattern.compile(regex), replacement));
+        return this;
+    }
+
+    /**
+     * fields whose whole json name matches the regex get the annotation,
+     * before consumers added with {@link #addAfterFieldCreationConsumers(Consumer)} run
+     */
+    public GeneratePojoFromJsonBuilder annotateFields(String regex, AnnotationSpec annotation) {
+        fieldAnnotations.add(Pair.of(Pattern.compile(regex), annotation));
+        return this;
+    }
+
+    /**
+     * no fields are generated for json names that match the regex as a whole, nor classes of their values.
+     * Streaming readers skip such names
+     */
+    public GeneratePojoFromJsonBuilder skipFields(String regex) {
+        skippedFields.add(Pattern.compile(regex));
+        return this;
+    }
+
+    /**
+     * infer types of large arrays and batches of documents on the given pool, output is the same as sequential one
+     */
+    public GeneratePojoFromJsonBuilder useParallelInference(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+        return this;
+    }
+
+    public GeneratePojoFromJsonBuilder useParallelInference(boolean state) {
+        forkJoinPool = state ? ForkJoinPool.commonPool() : null;
+        return this;
+    }
+
+    /**
+     * @param parallelThreshold arrays and batches of documents not larger than this are handled by a single task
+     */
+    public GeneratePojoFromJsonBuilder setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("Parallel threshold must be positive");
+        }
+        this.parallelThreshold = parallelThreshold;
+        return this;
+    }
+
+    /**
+     * objects with the same fields of the same types share one nested class, the class is declared where
+     * such an object is met first
+     */
+    public GeneratePojoFromJsonBuilder deduplicateClasses(boolean state) {
+        deduplicateClasses = state;
+        return this;
+    }
+
+    /**
+     * classes written by {@link GeneratePojoFromJson#writeTo} become top-level classes of one package,
+     * each written to its own file as soon as it is generated. Doesn't affect invoke methods
+     */
+    public GeneratePojoFromJsonBuilder splitNestedClasses(boolean state) {
+        splitNestedClasses = state;
+        return this;
+    }
+
+    /**
+     * every class gets {@code static T read(JsonReader reader)} that binds json without reflection.
+     * The method is added after all consumers added with {@link #addAfterCreationClass(Consumer)}
+     */
+    public GeneratePojoFromJsonBuilder generateStreamingReaders(boolean state) {
+        streamingReaders = state;
+        return this;
+    }
+
+    /**
+     * every class gets {@code writeTo(JsonWriter writer)} and {@code writeTo(JsonBytes out)} that write json
+     * without reflection. The methods are added after all consumers added with
+     * {@link #addAfterCreationClass(Consumer)}. {@code JsonBytes} is generated with the classes,
+     * nested in the top-level class or next to it if nested classes are split,
+     * so generated classes don't need this library at runtime
+     */
+    public GeneratePojoFromJsonBuilder generateStreamingWriters(boolean state) {
+        streamingWriters = state;
+        return this;
+    }
+
+    /**
+     * fields of nested classes, lists and arrays keep raw json of their values when they are read and decode it
+     * on the first call of their getter, e.g. {@code getAddress()}, so reading a large model of which only a few
+     * fields are used doesn't build the rest. Implies {@link #generateStreamingReaders(boolean)}.
+     * Raw json is kept and decoded with {@link RawJson}, so this library must be on the runtime classpath
+     * of generated classes. Such fields are set with their setters and left out of the constructor in compact layout,
+     * streaming writers write raw json of fields that are not decoded as it is.
+     * Values are checked only when they are decoded, so a value of a wrong type fails in the getter, not in read.
+     * Decoding is not synchronized, an instance read lazily must not be shared between threads before its getters
+     * are called
+     */
+    public GeneratePojoFromJsonBuilder decodeNestedLazily(boolean state) {
+        lazyNested = state;
+        return this;
+    }
+
+    /**
+     * only sampled elements of arrays are inferred, bounds inference time and memory for huge arrays.
+     * Every element is inferred by default, see {@link ArraySampling}
+     */
+    public GeneratePojoFromJsonBuilder setArraySampling(ArraySampling arraySampling) {
+        this.arraySampling = arraySampling;
+        return this;
+    }
+
+    /**
+     * json with objects and arrays nested deeper than this fails with {@link com.google.gson.JsonSyntaxException}
+     * instead of running out of stack, 1000 by default. Json is walked and classes are generated without recursion,
+     * so a higher limit takes only heap. Merging of several documents and printing of nested classes and lists
+     * still take stack per level, nested classes are printed as separate files with
+     * {@link #splitNestedClasses(boolean)}
+     */
+    public GeneratePojoFromJsonBuilder setMaxDepth(int maxDepth) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("Max depth must be positive");
+        }
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    /**
+     * listener gets timings of the phases, counts and time spent in every consumer after each invocation.
+     * Consumers and field creation are timed only if there is a listener
+     */
+    public GeneratePojoFromJsonBuilder addMetricsListener(Consumer<GenerationMetrics> listener) {
+        metricsListeners.add(listener);
+        return this;
+    }
+
     public GeneratePojoFromJsonBuilder setIndent(int indent) {
         this.indent = indent;
         return this;
@@ -80,7 +314,10 @@ public class GeneratePojoFromJsonBuilder {
         TypeName longType;
         TypeName intType;
         TypeName doubleType = TypeName.DOUBLE;
-        if (useDoubleNumbers) {
+        if (compactLayout) {
+            longType = TypeName.LONG;
+            intType = TypeName.INT;
+        } else if (useDoubleNumbers) {
             intType = doubleType;
             longType = doubleType;
         } else if (useLongIntegers) {
@@ -90,16 +327,53 @@ public class GeneratePojoFromJsonBuilder {
             longType = TypeName.LONG;
             intType = TypeName.INT;
         }
+        TypeName shortType = compactLayout ? TypeName.SHORT : intType;
+        TypeName byteType = compactLayout ? TypeName.BYTE : intType;
         TypeName booleanType = TypeName.BOOLEAN;
-        if (!usePrimitiveDataTypesInsteadBoxed) {
+        if (!usePrimitiveDataTypesInsteadBoxed && !compactLayout) {
             doubleType = doubleType.box();
             longType = longType.box();
             intType = intType.box();
+            shortType = shortType.box();
+            byteType = byteType.box();
             booleanType = booleanType.box();
         }
-        final FieldFactory fieldFactory = new FieldFactory(afterFieldCreationConsumers, beforeFieldCreationConsumers,
-                doubleType, longType, intType, booleanType);
-        return new GeneratePojoFromJson(indent, fieldFactory, afterCreationClass, beforeCreationClass);
+        // generator gets its own copies, so adding consumers to the builder later doesn't affect it
+        final FieldFactory fieldFactory = new FieldFactory(new ConsumerChain<>(afterFieldCreationConsumers),
+                new ConsumerChain<>(beforeFieldCreationConsumers),
+                new FieldRules(fieldRenames, fieldAnnotations, skippedFields), doubleType, longType, intType,
+                shortType, byteType, booleanType, null);
+        final ParallelJsonShapes parallelJsonShapes = forkJoinPool == null ? null
+                : new ParallelJsonShapes(forkJoinPool, parallelThreshold, arraySampling, maxDepth);
+        final Map<TypeName, TypeName> primitiveArrayTypes = new HashMap<>();
+        if (usePrimitiveArrays || compactLayout) {
+            for (TypeName primitiveType : List.of(TypeName.BYTE, TypeName.SHORT, TypeName.INT, TypeName.LONG,
+                    TypeName.DOUBLE, TypeName.BOOLEAN)) {
+                primitiveArrayTypes.put(primitiveType, ArrayTypeName.of(primitiveType));
+            }
+            primitiveArrayTypes.putAll(primitiveCollections);
+        }
+        final Set<TypeName> collectionTypes = new HashSet<>(primitiveArrayTypes.values());
+        collectionTypes.removeIf(type -> type instanceof ArrayTypeName);
+        final List<Consumer<TypeSpecBuilderWrapper>> afterCreationClass = new ArrayList<>(this.afterCreationClass);
+        if (lazyNested) {
+            afterCreationClass.add(new LazyFields(Set.copyOf(collectionTypes)));
+        }
+        if (compactLayout) {
+            afterCreationClass.add(new FinalFields());
+        }
+        if (streamingReaders || lazyNested) {
+            afterCreationClass.add(new StreamingReaders(Set.copyOf(collectionTypes), lazyNested));
+        }
+        if (streamingWriters) {
+            afterCreationClass.add(new StreamingWriters(Set.copyOf(collectionTypes)));
+        }
+        return new GeneratePojoFromJson(indent, fieldFactory, new ConsumerChain<>(afterCreationClass),
+                new ConsumerChain<>(beforeCreationClass),
+                parallelJsonShapes, deduplicateClasses, splitNestedClasses, List.copyOf(metricsListeners),
+                arraySampling, maxDepth, Map.copyOf(primitiveArrayTypes), new ShapeTypes(compactLayout,
+                maxEnumValues >= 0 ? maxEnumValues : compactLayout ? COMPACT_ENUM_VALUES : 0, valueFormats),
+                streamingWriters ? List.of(JsonBytesClass.TYPE_SPEC) : List.of());
     }
 
 }
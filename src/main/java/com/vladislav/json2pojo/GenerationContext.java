@@ -0,0 +1,88 @@
+package com.vladislav.json2pojo;
+
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.TypeSpec;
+import com.vladislav.json2pojo.pojo.ClassNameRef;
+import com.vladislav.json2pojo.pojo.TypeSpecBuilderWrapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * state of a single invocation of {@link GeneratePojoFromJson}, never shared between invocations
+ */
+class GenerationContext {
+    final FieldFactory fieldFactory;
+    final ConsumerChain<ClassNameRef> beforeCreationClass;
+    final ConsumerChain<TypeSpecBuilderWrapper> afterCreationClass;
+    final NestedClassCache nestedClasses;  // null if classes are not deduplicated
+    final GenerationMetrics metrics;  // null if metrics are not collected
+    private final JavaFileSink sink;  // null if nested classes stay nested
+    private final String indent;
+    private final Set<String> topLevelNames = new HashSet<>();
+    private int depth;
+
+    GenerationContext(FieldFactory fieldFactory, ConsumerChain<ClassNameRef> beforeCreationClass,
+                      ConsumerChain<TypeSpecBuilderWrapper> afterCreationClass, ShapeTypes types,
+                      boolean deduplicateClasses, JavaFileSink sink, String indent, GenerationMetrics metrics) {
+        if (metrics != null) {  // consumers are timed only if somebody listens
+            fieldFactory = fieldFactory.withMetrics(metrics);
+            beforeCreationClass = beforeCreationClass.timed(metrics, "addBeforeCreationClass");
+            afterCreationClass = afterCreationClass.timed(metrics, "addAfterCreationClass");
+        }
+        this.fieldFactory = fieldFactory;
+        this.beforeCreationClass = beforeCreationClass;
+        this.afterCreationClass = afterCreationClass;
+        nestedClasses = deduplicateClasses ? new NestedClassCache(types) : null;
+        this.metrics = metrics;
+        this.sink = sink;
+        this.indent = indent;
+    }
+
+    void enterClass() {
+        depth++;
+        if (metrics != null) {
+            metrics.addClass(depth);
+        }
+    }
+
+    void exitClass() {
+        depth--;
+    }
+
+    /**
+     * @return true if every class is written to its own file as soon as it is generated
+     */
+    boolean isSplit() {
+        return sink != null;
+    }
+
+    /**
+     * classes split into top-level files share one package, so a taken name gets a number
+     */
+    String uniqueTopLevelName(String className) {
+        String uniqueName = className;
+        for (int i = 2; !topLevelNames.add(uniqueName); i++) {
+            uniqueName = className + i;
+        }
+        return uniqueName;
+    }
+
+    JavaFile toJavaFile(String packagePath, TypeSpec typeSpec) {
+        return JavaFile.builder(packagePath, typeSpec)
+                .indent(indent)
+                .build();
+    }
+
+    void write(String packagePath, TypeSpec typeSpec) {
+        final long start = System.nanoTime();
+        try {
+            sink.write(toJavaFile(packagePath, typeSpec));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        GenerationMetrics.record(metrics, GenerationMetrics.Phase.RENDERING, start);
+    }
+}
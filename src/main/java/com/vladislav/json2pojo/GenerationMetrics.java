@@ -0,0 +1,124 @@
+package com.vladislav.json2pojo;
+
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * timings and counts of a single invocation of {@link GeneratePojoFromJson},
+ * reported to listeners registered with {@link GeneratePojoFromJsonBuilder#addMetricsListener(Consumer)}
+ */
+@Getter
+public class GenerationMetrics {
+
+    public enum Phase {
+        PARSING,  // json to tree, streaming inputs are parsed while inferred and count as inference
+        INFERENCE,
+        CLASS_GENERATION,  // shapes to TypeSpec, includes field creation and all consumers
+        FIELD_CREATION,  // FieldFactory.createField with its consumers, part of class generation
+        RENDERING  // JavaFile to its sink, classes split while generating also count as class generation
+    }
+
+    @Getter
+    public static class ConsumerMetrics {
+        private final String hook;  // name of the builder method the consumer was registered with
+        private final Object consumer;
+        private long calls;
+        private long nanos;
+
+        ConsumerMetrics(String hook, Object consumer) {
+            this.hook = hook;
+            this.consumer = consumer;
+        }
+    }
+
+    private final Map<Phase, Long> phaseNanos = new EnumMap<>(Phase.class);
+    private int classes;
+    private int fields;
+    private long arrayElements;  // elements folded into the inferred schema
+    private int maxDepth;  // deepest nesting of generated classes, root class is 1
+    private final List<ConsumerMetrics> consumers = new ArrayList<>();
+
+    public long getNanos(Phase phase) {
+        return phaseNanos.getOrDefault(phase, 0L);
+    }
+
+    public Map<Phase, Long> getPhaseNanos() {
+        return Collections.unmodifiableMap(phaseNanos);
+    }
+
+    public List<ConsumerMetrics> getConsumers() {
+        return Collections.unmodifiableList(consumers);
+    }
+
+    /**
+     * @return current time, to be passed as start of the next phase
+     */
+    static long record(GenerationMetrics metrics, Phase phase, long start) {
+        final long now = System.nanoTime();
+        if (metrics != null) {
+            metrics.phaseNanos.merge(phase, now - start, Long::sum);
+        }
+        return now;
+    }
+
+    void addClass(int depth) {
+        classes++;
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    void addField() {
+        fields++;
+    }
+
+    void addArrayElements(JsonShape jsonShape) {
+        final Deque<JsonShape> shapes = new ArrayDeque<>();  // instead of recursion, shapes may be nested deep
+        shapes.push(jsonShape);
+        while (!shapes.isEmpty()) {
+            final JsonShape shape = shapes.pop();
+            switch (shape.getType()) {
+                case OBJECT:
+                    ((ObjectShape) shape).fields.values().forEach(shapes::push);
+                    break;
+                case ARRAY:
+                    final ArrayShape arrayShape = (ArrayShape) shape;
+                    arrayElements += arrayShape.getElementCount();
+                    if (arrayShape.getObjects() != null) {
+                        shapes.push(arrayShape.getObjects());
+                    }
+                    if (arrayShape.getElements() != null) {
+                        shapes.push(arrayShape.getElements());
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * @return consumers that add their time to these metrics
+     */
+    <T> List<Consumer<T>> timed(String hook, List<Consumer<T>> consumers) {
+        final List<Consumer<T>> timedConsumers = new ArrayList<>(consumers.size());
+        for (Consumer<T> consumer : consumers) {
+            final ConsumerMetrics consumerMetrics = new ConsumerMetrics(hook, consumer);
+            this.consumers.add(consumerMetrics);
+            timedConsumers.add(value -> {
+                final long start = System.nanoTime();
+                try {
+                    consumer.accept(value);
+                } finally {
+                    consumerMetrics.nanos += System.nanoTime() - start;
+                    consumerMetrics.calls++;
+                }
+            });
+        }
+        return timedConsumers;
+    }
+}
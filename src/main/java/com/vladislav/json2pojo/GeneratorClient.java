@@ -0,0 +1,205 @@
+package com.vladislav.json2pojo;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import lombok.RequiredArgsConstructor;
+
+import java.io.*;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * client of {@link GeneratorDaemon}, loads next to nothing of the generator, so it starts fast.
+ * {@link #main(String[])} is meant to be run by a build, e.g. with the java goal of exec-maven-plugin,
+ * and generates in its own JVM if no daemon runs
+ */
+public class GeneratorClient implements AutoCloseable {
+    private final Socket socket;
+    private final String token;
+    private final BufferedReader reader;
+    private final Writer writer;
+
+    private GeneratorClient(Socket socket, String token) throws IOException {
+        this.socket = socket;
+        this.token = token;
+        reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IOException if there is no daemon file or the daemon doesn't accept connections
+     */
+    public static GeneratorClient connect(Path daemonFile) throws IOException {
+        final String[] portAndToken = Files.readString(daemonFile, StandardCharsets.UTF_8).trim().split(" ");
+        if (portAndToken.length != 2) {
+            throw new IOException("Not a daemon file: " + daemonFile);
+        }
+        final Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(portAndToken[0]));
+        return new GeneratorClient(socket, portAndToken[1]);
+    }
+
+    /**
+     * generates a class for every job, jobs are generated concurrently
+     *
+     * @param options configuration of the generator: names of builder methods with json values,
+     *                e.g. {@code {"useCompactLayout": true, "skipFields": ["_.*"]}}
+     * @return results in the order of jobs
+     * @throws IOException if the daemon is gone or rejects the request, e.g. because of an unknown option
+     */
+    public List<Result> generate(JsonObject options, List<BatchGenerator.Job> jobs) throws IOException {
+        return results(send(request(options, jobs)), jobs);
+    }
+
+    public void stopDaemon() throws IOException {
+        final JsonObject request = new JsonObject();
+        request.addProperty("stop", true);
+        send(request);
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    @RequiredArgsConstructor
+    public static class Result {
+        public final BatchGenerator.Job job;
+        public final String path;  // of the source file relative to a source root, null if job failed
+        public final String source;  // null if job failed
+        public final String error;  // null if job succeeded
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    /**
+     * usage: {@code GeneratorClient <daemon file> <output directory> <package> [--option=value ...] <sample> ...}.
+     * Every sample file becomes a class named after the file, options are builder method names with json values,
+     * e.g. {@code --useCompactLayout=true --detectValueFormats=["UUID"]}, an option without a value is true.
+     * Files whose content doesn't change are not written, so incremental compilation stays warm
+     */
+    public static void main(String[] args) throws IOException {
+        final List<String> positional = new ArrayList<>();
+        final JsonObject options = new JsonObject();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                final int equals = arg.indexOf('=');
+                final String value = equals < 0 ? "true" : arg.substring(equals + 1);
+                options.add(equals < 0 ? arg.substring(2) : arg.substring(2, equals), JsonParser.parseString(value));
+            } else {
+                positional.add(arg);
+            }
+        }
+        if (positional.size() < 4) {
+            System.err.println("Usage: GeneratorClient <daemon file> <output directory> <package> "
+                    + "[--option=value ...] <sample> ...");
+            System.exit(2);
+        }
+        final Path outputDirectory = Path.of(positional.get(1));
+        final List<BatchGenerator.Job> jobs = new ArrayList<>();
+        for (String sample : positional.subList(3, positional.size())) {
+            final Path path = Path.of(sample);
+            final String fileName = path.getFileName().toString();
+            final String className = fileName.contains(".") ? fileName.substring(0, fileName.lastIndexOf('.'))
+                    : fileName;
+            jobs.add(new BatchGenerator.Job(positional.get(2), className,
+                    Files.readString(path, StandardCharsets.UTF_8)));
+        }
+        List<Result> results;
+        try (GeneratorClient client = connect(Path.of(positional.get(0)))) {
+            results = client.generate(options, jobs);
+        } catch (NoSuchFileException | ConnectException e) {  // no daemon, generate here
+            try (GeneratorDaemon generator = new GeneratorDaemon(Runtime.getRuntime().availableProcessors())) {
+                results = results(generator.generate(request(options, jobs)), jobs);
+            }
+        }
+        int failures = 0;
+        for (Result result : results) {
+            if (result.isSuccess()) {
+                writeIfChanged(outputDirectory, result);
+            } else {
+                System.err.println(result.job.packagePath + "." + result.job.className + ": " + result.error);
+                failures++;
+            }
+        }
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * the token goes first, the daemon reads nothing else before it has checked the token
+     */
+    private JsonObject send(JsonObject request) throws IOException {
+        final JsonObject tokenFirst = new JsonObject();
+        tokenFirst.addProperty("token", token);
+        request.entrySet().forEach(member -> tokenFirst.add(member.getKey(), member.getValue()));
+        writer.write(tokenFirst.toString());
+        writer.write('\n');
+        writer.flush();
+        final String line = reader.readLine();
+        if (line == null) {
+            throw new EOFException("Daemon closed the connection, the token may be wrong");
+        }
+        return JsonParser.parseString(line).getAsJsonObject();
+    }
+
+    private static JsonObject request(JsonObject options, List<BatchGenerator.Job> jobs) {
+        final JsonArray jobArray = new JsonArray();
+        for (BatchGenerator.Job job : jobs) {
+            final JsonObject jobObject = new JsonObject();
+            jobObject.addProperty("packagePath", job.packagePath);
+            jobObject.addProperty("className", job.className);
+            jobObject.addProperty("json", job.json);
+            jobArray.add(jobObject);
+        }
+        final JsonObject request = new JsonObject();
+        request.add("options", options);
+        request.add("jobs", jobArray);
+        return request;
+    }
+
+    private static List<Result> results(JsonObject response, List<BatchGenerator.Job> jobs) throws IOException {
+        if (response.has("error")) {
+            throw new IOException(response.get("error").getAsString());
+        }
+        final JsonArray resultArray = response.getAsJsonArray("results");
+        final List<Result> results = new ArrayList<>(jobs.size());
+        for (int i = 0; i < jobs.size(); i++) {
+            final JsonObject result = resultArray.get(i).getAsJsonObject();
+            results.add(new Result(jobs.get(i), string(result, "path"), string(result, "source"),
+                    string(result, "error")));
+        }
+        return results;
+    }
+
+    private static String string(JsonObject object, String name) {
+        final JsonElement element = object.get(name);
+        return element == null ? null : element.getAsString();
+    }
+
+    private static void writeIfChanged(Path outputDirectory, Result result) throws IOException {
+        final Path root = outputDirectory.toAbsolutePath().normalize();
+        final Path file = root.resolve(result.path).normalize();
+        if (!file.startsWith(root)) {
+            throw new IOException("Source path is outside of the output directory: " + result.path);
+        }
+        final byte[] content = result.source.getBytes(StandardCharsets.UTF_8);
+        if (Files.exists(file) && Arrays.equals(Files.readAllBytes(file), content)) {
+            return;
+        }
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+    }
+}
@@ -0,0 +1,374 @@
+package com.vladislav.json2pojo;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.squareup.javapoet.JavaFile;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * long-running generator for builds: classes are loaded and code is compiled by the JIT once,
+ * so a build that generates hundreds of small classes doesn't pay for a cold JVM every time.
+ * Generators are built once per configuration and reused by all requests, a configuration is a json object
+ * of builder method names and their arguments, consumers can't be configured but declarative field rules can.
+ * <p>
+ * At most {@value #MAX_GENERATORS} configurations are kept, the least recently used one is shut down first.
+ * <p>
+ * The daemon listens on the loopback interface only and writes its port and a random token to the daemon file,
+ * readable only by the owner where the file system supports it. Every request must start with the token,
+ * it is checked before the rest of the request is read. Requests and responses are json objects, one per line,
+ * several requests may be sent over one connection (shown here on several lines):
+ * <pre>
+ * {"token": "...", "options": {"useCompactLayout": true},
+ *  "jobs": [{"packagePath": "a", "className": "B", "json": "{}"}]}
+ * {"results": [{"path": "a/B.java", "source": "..."}, {"error": "..."}]}
+ * </pre>
+ * A request {@code {"token": "...", "stop": true}} stops the daemon. See {@link GeneratorClient}.
+ * <p>
+ * At most {@value #MAX_CONNECTIONS} connections are served at once, further ones are closed right away.
+ * A connection is closed if its client sends nothing for {@value #READ_TIMEOUT_MILLIS} ms, sends a request
+ * of more than about {@value #MAX_REQUEST_CHARS} characters or a request without the right token
+ */
+public class GeneratorDaemon implements AutoCloseable {
+    public static final int MAX_CONNECTIONS = 64;
+    public static final int MAX_GENERATORS = 16;
+    public static final int MAX_REQUEST_CHARS = 16 * 1024 * 1024;
+    public static final int READ_TIMEOUT_MILLIS = 30_000;
+    private static final int MAX_TOKEN_CHARS = 4096;  // read before the token is checked, with the read-ahead
+
+    private final int maxConcurrency;  // jobs of one configuration generated at once
+    private final Map<String, BatchGenerator> generators;  // by options key, access ordered, guarded by itself
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private ServerSocket serverSocket;  // null until the daemon listens
+    private Path daemonFile;
+    private byte[] token;
+    private ExecutorService connections;
+    private boolean closed;  // guarded by generators
+
+    public GeneratorDaemon(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Max concurrency must be positive");
+        }
+        this.maxConcurrency = maxConcurrency;
+        generators = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, BatchGenerator> eldest) {
+                if (size() <= MAX_GENERATORS) {
+                    return false;
+                }
+                eldest.getValue().close();  // jobs already submitted still complete
+                return true;
+            }
+        };
+    }
+
+    /**
+     * usage: {@code GeneratorDaemon <daemon file> [port]}, a free port is chosen by default.
+     * Runs until it is stopped by a client or the JVM exits
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: GeneratorDaemon <daemon file> [port]");
+            System.exit(2);
+        }
+        final GeneratorDaemon daemon = new GeneratorDaemon(Runtime.getRuntime().availableProcessors());
+        Runtime.getRuntime().addShutdownHook(new Thread(daemon::close));
+        daemon.listen(Path.of(args[0]), args.length > 1 ? Integer.parseInt(args[1]) : 0);
+        daemon.awaitStop();
+        daemon.close();
+    }
+
+    /**
+     * starts accepting connections on a background thread
+     *
+     * @param port 0 to choose a free one, see {@link #port()}
+     */
+    public synchronized void listen(Path daemonFile, int port) throws IOException {
+        if (serverSocket != null) {
+            throw new IllegalStateException("Daemon already listens on port " + serverSocket.getLocalPort());
+        }
+        token = new byte[32];
+        new SecureRandom().nextBytes(token);
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.daemonFile = daemonFile;
+        writeDaemonFile(daemonFile, serverSocket.getLocalPort() + " " + Base64.getEncoder().encodeToString(token));
+        final ThreadFactory threadFactory = runnable -> {
+            final Thread thread = new Thread(runnable, "json2pojo-daemon");
+            thread.setDaemon(true);
+            return thread;
+        };
+        connections = new ThreadPoolExecutor(0, MAX_CONNECTIONS, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                threadFactory);
+        threadFactory.newThread(this::accept).start();
+    }
+
+    public synchronized int port() {
+        return serverSocket == null ? -1 : serverSocket.getLocalPort();
+    }
+
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * stops listening, removes the daemon file and shuts down generators, requests in progress are interrupted
+     */
+    @Override
+    public synchronized void close() {
+        if (serverSocket != null) {
+            try {
+                serverSocket.close();
+                Files.deleteIfExists(daemonFile);
+            } catch (IOException e) {  // nothing to do about it while stopping
+            }
+            connections.shutdownNow();
+        }
+        synchronized (generators) {
+            closed = true;
+            generators.values().forEach(BatchGenerator::close);
+            generators.clear();
+        }
+        stopped.countDown();
+    }
+
+    /**
+     * generates the jobs of a request without a connection, the token is not checked.
+     * Clients use it to generate in their own JVM when there is no daemon
+     *
+     * @return response to the request, rejected requests get a response with the error
+     */
+    JsonObject generate(JsonObject request) {
+        final JsonObject response = new JsonObject();
+        final List<BatchGenerator.Job> jobs = new ArrayList<>();
+        final JsonObject options;
+        try {
+            options = request.has("options") ? request.getAsJsonObject("options") : new JsonObject();
+            generator(options);  // rejects unknown options before any job is read
+            for (JsonElement element : request.getAsJsonArray("jobs")) {
+                final JsonObject job = element.getAsJsonObject();
+                jobs.add(new BatchGenerator.Job(job.get("packagePath").getAsString(),
+                        job.get("className").getAsString(), job.get("json").getAsString()));
+            }
+        } catch (RuntimeException e) {
+            response.addProperty("error", "Wrong request: " + e);
+            return response;
+        }
+        List<BatchGenerator.Result> results = null;
+        try {
+            while (results == null) {
+                final BatchGenerator generator = generator(options);
+                if (generator == null) {
+                    response.addProperty("error", "Daemon is stopping");
+                    return response;
+                }
+                try {
+                    results = generator.generate(jobs);
+                } catch (RejectedExecutionException e) {  // evicted meanwhile, jobs are generated by its successor
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.addProperty("error", "Daemon is stopping");
+            return response;
+        }
+        final JsonArray resultArray = new JsonArray();
+        for (BatchGenerator.Result result : results) {
+            final JsonObject resultObject = new JsonObject();
+            if (result.isSuccess()) {
+                resultObject.addProperty("path", sourcePath(result.javaFile));
+                resultObject.addProperty("source", result.javaFile.toString());
+            } else {
+                resultObject.addProperty("error", result.error.toString());
+            }
+            resultArray.add(resultObject);
+        }
+        response.add("results", resultArray);
+        return response;
+    }
+
+    /**
+     * @return generator of the configuration, built if it is not cached, null if the daemon is closed
+     * @throws RuntimeException if the options are not a configuration of the builder
+     */
+    private BatchGenerator generator(JsonObject options) {
+        final String key = GeneratorOptions.key(options);
+        synchronized (generators) {
+            if (closed) {
+                return null;
+            }
+            BatchGenerator generator = generators.get(key);
+            if (generator == null) {
+                generator = new BatchGenerator(GeneratorOptions.toBuilder(options).build(), maxConcurrency);
+                generators.put(key, generator);
+            }
+            return generator;
+        }
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            Socket socket = null;
+            try {
+                socket = serverSocket.accept();
+                final Socket acceptedSocket = socket;
+                connections.execute(() -> serve(acceptedSocket));
+            } catch (SocketException e) {  // server socket is closed
+                return;
+            } catch (RejectedExecutionException e) {  // too many connections or the daemon is stopping
+                closeQuietly(socket);
+            } catch (IOException e) {
+                // the client is gone before it was accepted, keep accepting the others
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             BoundedReader reader = new BoundedReader(new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)));
+             Writer writer = new BufferedWriter(
+                     new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+            final JsonReader jsonReader = new JsonReader(reader);
+            jsonReader.setLenient(true);  // lenient reader accepts multiple top-level values
+            while (true) {
+                reader.allow(MAX_TOKEN_CHARS);
+                if (jsonReader.peek() == JsonToken.END_DOCUMENT) {
+                    return;
+                }
+                final JsonObject request = readRequest(jsonReader, reader);
+                if (request == null) {
+                    return;  // not a client of the daemon
+                }
+                if (request.has("stop") && request.get("stop").getAsBoolean()) {
+                    writer.write("{}\n");
+                    writer.flush();
+                    close();
+                    return;
+                }
+                writer.write(generate(request).toString());
+                writer.write('\n');
+                writer.flush();
+            }
+        } catch (IOException | RuntimeException e) {
+            // the client is gone, too slow or not a client of the daemon, its jobs are lost
+        }
+    }
+
+    /**
+     * reads the request member by member, the token must be the first member and is checked
+     * before anything else is read, then the rest of the request may be up to {@value #MAX_REQUEST_CHARS} long
+     *
+     * @return request without the token, null if the token is missing or wrong
+     */
+    private JsonObject readRequest(JsonReader jsonReader, BoundedReader reader) throws IOException {
+        jsonReader.beginObject();
+        if (!jsonReader.hasNext() || !"token".equals(jsonReader.nextName())
+                || jsonReader.peek() != JsonToken.STRING || !hasToken(jsonReader.nextString())) {
+            return null;
+        }
+        reader.allow(MAX_REQUEST_CHARS);
+        final JsonObject request = new JsonObject();
+        while (jsonReader.hasNext()) {
+            request.add(jsonReader.nextName(), JsonParser.parseReader(jsonReader));
+        }
+        jsonReader.endObject();
+        return request;
+    }
+
+    private boolean hasToken(String requestToken) {
+        try {
+            return MessageDigest.isEqual(token, Base64.getDecoder().decode(requestToken));
+        } catch (IllegalArgumentException e) {  // not base64
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {  // the client is turned away anyway
+        }
+    }
+
+    /**
+     * @return path of the source file relative to a source root, e.g. {@code com/example/Root.java}
+     */
+    static String sourcePath(JavaFile javaFile) {
+        final String fileName = javaFile.typeSpec.name + ".java";
+        return javaFile.packageName.isEmpty() ? fileName : javaFile.packageName.replace('.', '/') + "/" + fileName;
+    }
+
+    /**
+     * the file is written next to its final place and moved there, so clients never read it half-written
+     */
+    private static void writeDaemonFile(Path daemonFile, String content) throws IOException {
+        final Path absoluteFile = daemonFile.toAbsolutePath();
+        Files.createDirectories(absoluteFile.getParent());
+        final Path temporaryFile = absoluteFile.resolveSibling(absoluteFile.getFileName() + ".tmp");
+        Files.deleteIfExists(temporaryFile);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(temporaryFile,
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(temporaryFile);
+        }
+        Files.write(temporaryFile, content.getBytes(StandardCharsets.UTF_8));
+        Files.move(temporaryFile, absoluteFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * reader that fails once more characters are read than allowed, buffers of readers on top of it
+     * read ahead, so a request gets the allowance plus at most one buffer of the next request
+     */
+    private static final class BoundedReader extends FilterReader {
+        private int remaining;
+
+        BoundedReader(Reader in) {
+            super(in);
+        }
+
+        void allow(int chars) {
+            remaining = chars;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                throw new IOException("Request is longer than allowed");
+            }
+            final int c = super.read();
+            if (c >= 0) {
+                remaining--;
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                throw new IOException("Request is longer than allowed");
+            }
+            final int read = super.read(buffer, offset, Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.vladislav.json2pojo;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import lombok.experimental.UtilityClass;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * configuration of {@link GeneratePojoFromJsonBuilder} as a json object, so it can be sent to
+ * {@link GeneratorDaemon}. Names are the names of the builder methods, e.g.
+ * {@code {"useCompactLayout": true, "detectEnums": 3, "detectValueFormats": ["UUID"], "skipFields": ["_.*"]}}.
+ * Consumers can't be sent, declarative field rules can: {@code "renameFields": [["^_", ""]]}
+ */
+@UtilityClass
+class GeneratorOptions {
+
+    /**
+     * @return the same options with sorted names, generators are shared by configurations with the same key
+     */
+    public String key(JsonObject options) {
+        final Map<String, JsonElement> sortedOptions = new TreeMap<>();
+        for (Map.Entry<String, JsonElement> entry : options.entrySet()) {
+            sortedOptions.put(entry.getKey(), entry.getValue());
+        }
+        final JsonObject sorted = new JsonObject();
+        sortedOptions.forEach(sorted::add);
+        return sorted.toString();
+    }
+
+    /**
+     * @throws IllegalArgumentException if an option is unknown or its value doesn't fit
+     */
+    public GeneratePojoFromJsonBuilder toBuilder(JsonObject options) {
+        final GeneratePojoFromJsonBuilder builder = GeneratePojoFromJson.builder();
+        for (Map.Entry<String, JsonElement> entry : options.entrySet()) {
+            final JsonElement value = entry.getValue();
+            try {
+                apply(builder, entry.getKey(), value);
+            } catch (IllegalArgumentException e) {
+                throw e;
+            } catch (RuntimeException e) {  // value is of another json type or misses a part
+                throw new IllegalArgumentException("Wrong value of option " + entry.getKey() + ": " + value, e);
+            }
+        }
+        return builder;
+    }
+
+    private void apply(GeneratePojoFromJsonBuilder builder, String name, JsonElement value) {
+        switch (name) {
+            case "setIndent":
+                builder.setIndent(value.getAsInt());
+                break;
+            case "useUnboxedPrimitive":
+                if (value.getAsBoolean()) {
+                    builder.useUnboxedPrimitive();
+                }
+                break;
+            case "useDoubleNumbers":
+                builder.useDoubleNumbers(value.getAsBoolean());
+                break;
+            case "useLongIntegers":
+                builder.useLongIntegers(value.getAsBoolean());
+                break;
+            case "usePrimitiveArrays":
+                builder.usePrimitiveArrays(value.getAsBoolean());
+                break;
+            case "useCompactLayout":
+                builder.useCompactLayout(value.getAsBoolean());
+                break;
+            case "detectEnums":
+                builder.detectEnums(value.getAsInt());
+                break;
+            case "detectValueFormats":
+                final ValueFormat[] formats = new ValueFormat[value.getAsJsonArray().size()];
+                for (int i = 0; i < formats.length; i++) {
+                    formats[i] = ValueFormat.valueOf(value.getAsJsonArray().get(i).getAsString());
+                }
+                builder.detectValueFormats(formats);
+                break;
+            case "renameFields":
+                for (JsonElement rule : value.getAsJsonArray()) {
+                    builder.renameFields(rule.getAsJsonArray().get(0).getAsString(),
+                            rule.getAsJsonArray().get(1).getAsString());
+                }
+                break;
+            case "skipFields":
+                for (JsonElement regex : value.getAsJsonArray()) {
+                    builder.skipFields(regex.getAsString());
+                }
+                break;
+            case "useParallelInference":
+                builder.useParallelInference(value.getAsBoolean());
+                break;
+            case "deduplicateClasses":
+                builder.deduplicateClasses(value.getAsBoolean());
+                break;
+            case "generateStreamingReaders":
+                builder.generateStreamingReaders(value.getAsBoolean());
+                break;
+            case "generateStreamingWriters":
+                builder.generateStreamingWriters(value.getAsBoolean());
+                break;
+            case "decodeNestedLazily":
+                builder.decodeNestedLazily(value.getAsBoolean());
+                break;
+            case "setArraySampling":
+                builder.setArraySampling(arraySampling(value.getAsJsonObject()));
+                break;
+            case "setMaxDepth":
+                builder.setMaxDepth(value.getAsInt());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option: " + name);
+        }
+    }
+
+    /**
+     * @param sampling e.g. {@code {"kind": "reservoir", "size": 100, "seed": 1, "escalateOnConflict": true}}
+     */
+    private ArraySampling arraySampling(JsonObject sampling) {
+        final String kind = sampling.get("kind").getAsString().toUpperCase(Locale.ROOT);
+        final int size = sampling.has("size") ? sampling.get("size").getAsInt() : 0;
+        final long seed = sampling.has("seed") ? sampling.get("seed").getAsLong() : 0;
+        final ArraySampling arraySampling;
+        switch (ArraySampling.Kind.valueOf(kind)) {
+            case FIRST:
+                arraySampling = ArraySampling.first(size);
+                break;
+            case RESERVOIR:
+                arraySampling = ArraySampling.reservoir(size, seed);
+                break;
+            case STRATIFIED:
+                arraySampling = ArraySampling.stratified(size, seed);
+                break;
+            default:
+                arraySampling = ArraySampling.all();
+        }
+        final JsonElement escalate = sampling.get("escalateOnConflict");
+        return escalate != null && escalate.getAsBoolean() ? arraySampling.escalateOnConflict() : arraySampling;
+    }
+}
@@ -0,0 +1,30 @@
+package com.vladislav.json2pojo;
+
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * bounded cache of identifiers converted from json keys, so a key repeated in many objects is converted once.
+ * The cache is cleared when it is full, it is safe to share between threads
+ */
+@RequiredArgsConstructor
+class IdentifierCache {
+    private final Map<String, String> identifiers = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final UnaryOperator<String> converter;
+
+    String get(String key) {
+        String identifier = identifiers.get(key);
+        if (identifier == null) {
+            identifier = converter.apply(key);
+            if (identifiers.size() >= maxSize) {
+                identifiers.clear();
+            }
+            identifiers.put(key, identifier);
+        }
+        return identifier;
+    }
+}
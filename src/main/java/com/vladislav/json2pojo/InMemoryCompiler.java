@@ -0,0 +1,153 @@
+package com.vladislav.json2pojo;
+
+import com.google.gson.stream.JsonReader;
+import com.squareup.javapoet.JavaFile;
+import lombok.experimental.UtilityClass;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.util.*;
+
+/**
+ * compiles generated sources with the system java compiler without touching the disk: sources are rendered
+ * from {@link JavaFile} and class files are kept in memory. Every compilation gets its own class loader,
+ * so its classes are unloaded once nothing refers to the loader or its classes
+ */
+@UtilityClass
+class InMemoryCompiler {
+    private final List<String> OPTIONS = List.of("-proc:none", "-classpath", classpath());
+
+    /**
+     * @return top-level class of the file, loaded with nested classes visible to it by a new child of the parent
+     * @throws IllegalStateException if there is no compiler (not a JDK) or the source doesn't compile
+     */
+    Class<?> compile(JavaFile javaFile, ClassLoader parent) {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No system java compiler, classes are compiled only on a JDK");
+        }
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        final ClassFiles classFiles = new ClassFiles(
+                compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8));
+        try (classFiles) {
+            final boolean compiled = compiler.getTask(null, classFiles, diagnostics, OPTIONS, null,
+                    List.of(javaFile.toJavaFileObject())).call();
+            if (!compiled) {
+                final StringBuilder message = new StringBuilder("Generated classes don't compile:");
+                for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                    if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                        message.append('\n').append(diagnostic.getLineNumber()).append(": ")
+                                .append(diagnostic.getMessage(Locale.ROOT));
+                    }
+                }
+                throw new IllegalStateException(message.toString());
+            }
+        } catch (IOException e) {  // only closing of the file manager throws
+            throw new IllegalStateException(e);
+        }
+        final String className = javaFile.packageName.isEmpty() ? javaFile.typeSpec.name
+                : javaFile.packageName + "." + javaFile.typeSpec.name;
+        try {
+            return new SchemaClassLoader(parent, classFiles.toByteArrays()).loadClass(className);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * classpath of the application and of the libraries generated classes refer to,
+     * which may be loaded from elsewhere in containers
+     */
+    private String classpath() {
+        final Set<String> entries = new LinkedHashSet<>(
+                Arrays.asList(System.getProperty("java.class.path", "").split(File.pathSeparator)));
+        for (Class<?> library : List.of(JsonReader.class, RawJson.class)) {
+            final CodeSource codeSource = library.getProtectionDomain().getCodeSource();
+            if (codeSource != null && codeSource.getLocation() != null) {
+                try {
+                    entries.add(Path.of(codeSource.getLocation().toURI()).toString());
+                } catch (Exception e) {  // not a file, the compiler can't use it anyway
+                }
+            }
+        }
+        entries.remove("");
+        return String.join(File.pathSeparator, entries);
+    }
+
+    /**
+     * keeps class files written by the compiler in memory, sources and libraries are read as usual
+     */
+    private static final class ClassFiles extends ForwardingJavaFileManager<StandardJavaFileManager> {
+        private final Map<String, ByteArrayOutputStream> classes = new HashMap<>();
+
+        ClassFiles(StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                                   FileObject sibling) {
+            final URI uri = URI.create("memory:///" + className.replace('.', '/') + kind.extension);
+            return new SimpleJavaFileObject(uri, kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    classes.put(className, bytes);
+                    return bytes;
+                }
+            };
+        }
+
+        Map<String, byte[]> toByteArrays() {
+            final Map<String, byte[]> byteArrays = new HashMap<>();
+            classes.forEach((className, bytes) -> byteArrays.put(className, bytes.toByteArray()));
+            return byteArrays;
+        }
+    }
+
+    /**
+     * defines classes of one compilation. Its own classes are found before asking the parent,
+     * so generated classes never resolve to classes of the same name elsewhere
+     */
+    private static final class SchemaClassLoader extends ClassLoader {
+        private final Map<String, byte[]> classes;
+
+        SchemaClassLoader(ClassLoader parent, Map<String, byte[]> classes) {
+            super(parent);
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!classes.containsKey(name)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loadedClass = findLoadedClass(name);
+                if (loadedClass == null) {
+                    loadedClass = findClass(name);
+                }
+                if (resolve) {
+                    resolveClass(loadedClass);
+                }
+                return loadedClass;
+            }
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            final byte[] bytes = classes.get(name);
+            if (bytes == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
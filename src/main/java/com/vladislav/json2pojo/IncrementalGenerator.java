@@ -0,0 +1,175 @@
+package com.vladislav.json2pojo;
+
+import com.squareup.javapoet.JavaFile;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * regenerates only the classes whose json samples changed since the previous run.
+ * Unchanged classes are neither inferred again nor written, so their files keep their timestamps
+ * and incremental compilation of the generated sources stays warm
+ */
+@RequiredArgsConstructor
+public class IncrementalGenerator {
+    private final GeneratePojoFromJson generatePojoFromJson;
+    private final Path outputDirectory;
+    private final Path indexFile;
+    private final String configurationKey;  // identifies configuration of the generator, all classes are regenerated when it changes
+
+    /**
+     * one generated class, inferred from all objects of all sample files (json or newline delimited json)
+     */
+    @RequiredArgsConstructor
+    public static class Job {
+        public final String packagePath;
+        public final String className;
+        public final List<Path> samples;
+    }
+
+    public static class Report {
+        public final List<Path> written = new ArrayList<>();
+        public final List<Path> unchanged = new ArrayList<>();
+        public final List<Path> removed = new ArrayList<>();  // files of classes that are no longer generated
+    }
+
+    public Report generate(List<Job> jobs) throws IOException {
+        final SchemaIndex previousIndex = SchemaIndex.read(indexFile);
+        final boolean sameConfiguration = configurationKey.equals(previousIndex.configurationKey);
+        final SchemaIndex index = new SchemaIndex();
+        index.configurationKey = configurationKey;
+        final Report report = new Report();
+        for (Job job : jobs) {
+            final String key = job.packagePath + "." + job.className;
+            final SchemaIndex.Entry previous = sameConfiguration ? previousIndex.entries.get(key) : null;
+            final List<SchemaIndex.Input> inputs = hashInputs(job.samples, previous);
+            final boolean outputIntact = previous != null && isIntact(previous);
+            if (outputIntact && isSameInputs(previous.inputs, inputs)) {
+                index.entries.put(key, previous);
+                report.unchanged.add(outputDirectory.resolve(previous.outputPath));
+                continue;
+            }
+            final JsonSchema schema = new JsonSchema(generatePojoFromJson.inferFiles(job.samples));
+            final byte[] shapeDigest = ShapeFingerprints.digest(schema.shape);
+            // samples changed, but not their schema
+            if (outputIntact && Arrays.equals(previous.shapeDigest, shapeDigest)) {
+                index.entries.put(key, new SchemaIndex.Entry(inputs, shapeDigest, previous.outputPath,
+                        previous.outputSize, previous.outputModified));
+                report.unchanged.add(outputDirectory.resolve(previous.outputPath));
+                continue;
+            }
+            final JavaFile javaFile = generatePojoFromJson.invoke(job.packagePath, job.className, schema);
+            final Path output = outputPath(javaFile);
+            if (writeIfChanged(output, javaFile.toString().getBytes(StandardCharsets.UTF_8))) {
+                report.written.add(output);
+            } else {
+                report.unchanged.add(output);
+            }
+            index.entries.put(key, new SchemaIndex.Entry(inputs, shapeDigest,
+                    outputDirectory.relativize(output).toString(), Files.size(output),
+                    Files.getLastModifiedTime(output).toMillis()));
+        }
+        removeStaleOutputs(previousIndex, index, report);
+        index.write(indexFile);
+        return report;
+    }
+
+    private void removeStaleOutputs(SchemaIndex previousIndex, SchemaIndex index, Report report) throws IOException {
+        final Set<String> outputs = new HashSet<>();
+        index.entries.values().forEach(entry -> outputs.add(entry.outputPath));
+        for (SchemaIndex.Entry entry : previousIndex.entries.values()) {
+            if (!outputs.contains(entry.outputPath) && isIntact(entry)) {  // never delete a file somebody has changed
+                final Path output = outputDirectory.resolve(entry.outputPath);
+                Files.delete(output);
+                report.removed.add(output);
+            }
+        }
+    }
+
+    private boolean isIntact(SchemaIndex.Entry entry) throws IOException {
+        final Path output = outputDirectory.resolve(entry.outputPath);
+        return Files.isRegularFile(output) && Files.size(output) == entry.outputSize
+                && Files.getLastModifiedTime(output).toMillis() == entry.outputModified;
+    }
+
+    private Path outputPath(JavaFile javaFile) {
+        Path directory = outputDirectory;
+        if (!javaFile.packageName.isEmpty()) {
+            for (String packageComponent : javaFile.packageName.split("\\.")) {
+                directory = directory.resolve(packageComponent);
+            }
+        }
+        return directory.resolve(javaFile.typeSpec.name + ".java");
+    }
+
+    private static boolean writeIfChanged(Path output, byte[] content) throws IOException {
+        if (Files.isRegularFile(output) && Files.size(output) == content.length
+                && Arrays.equals(Files.readAllBytes(output), content)) {
+            return false;
+        }
+        Files.createDirectories(output.getParent());
+        Files.write(output, content);
+        return true;
+    }
+
+    /**
+     * content of a sample is hashed only if its size or modification time differs from the previous run
+     */
+    private static List<SchemaIndex.Input> hashInputs(List<Path> samples, SchemaIndex.Entry previous)
+            throws IOException {
+        final Map<String, SchemaIndex.Input> previousInputs = new HashMap<>();
+        if (previous != null) {
+            previous.inputs.forEach(input -> previousInputs.put(input.path, input));
+        }
+        final List<SchemaIndex.Input> inputs = new ArrayList<>(samples.size());
+        for (Path sample : samples) {
+            final String path = sample.toAbsolutePath().normalize().toString();
+            final long size = Files.size(sample);
+            final long modified = Files.getLastModifiedTime(sample).toMillis();
+            final SchemaIndex.Input previousInput = previousInputs.get(path);
+            if (previousInput != null && previousInput.size == size && previousInput.modified == modified) {
+                inputs.add(previousInput);
+            } else {
+                inputs.add(new SchemaIndex.Input(path, size, modified, hash(sample)));
+            }
+        }
+        return inputs;
+    }
+
+    private static boolean isSameInputs(List<SchemaIndex.Input> inputs1, List<SchemaIndex.Input> inputs2) {
+        if (inputs1.size() != inputs2.size()) {
+            return false;
+        }
+        for (int i = 0; i < inputs1.size(); i++) {
+            if (!inputs1.get(i).path.equals(inputs2.get(i).path)
+                    || !Arrays.equals(inputs1.get(i).contentHash, inputs2.get(i).contentHash)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] hash(Path sample) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        final byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(sample)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+}
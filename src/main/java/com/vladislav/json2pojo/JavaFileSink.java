@@ -0,0 +1,58 @@
+package com.vladislav.json2pojo;
+
+import com.squareup.javapoet.JavaFile;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * destination of generated source files, files are rendered straight into it without building a string first
+ */
+@FunctionalInterface
+public interface JavaFileSink {
+
+    void write(JavaFile javaFile) throws IOException;
+
+    /**
+     * writes every file to its package directory under the given directory, like {@link JavaFile#writeTo(Path)}
+     */
+    static JavaFileSink directory(Path directory) {
+        return javaFile -> {
+            Path packageDirectory = directory;
+            if (!javaFile.packageName.isEmpty()) {
+                for (String packageComponent : javaFile.packageName.split("\\.")) {
+                    packageDirectory = packageDirectory.resolve(packageComponent);
+                }
+            }
+            Files.createDirectories(packageDirectory);
+            final Path path = packageDirectory.resolve(javaFile.typeSpec.name + ".java");
+            try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                javaFile.writeTo(writer);
+            }
+        };
+    }
+
+    /**
+     * appends files one after another
+     */
+    static JavaFileSink appendable(Appendable appendable) {
+        return javaFile -> javaFile.writeTo(appendable);
+    }
+
+    /**
+     * encodes files as UTF-8 one after another, the channel is not closed
+     */
+    static JavaFileSink channel(WritableByteChannel channel) {
+        return javaFile -> {
+            final Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1));
+            javaFile.writeTo(writer);
+            writer.flush();
+        };
+    }
+}
@@ -0,0 +1,261 @@
+package com.vladislav.json2pojo;
+
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import lombok.experimental.UtilityClass;
+
+import javax.lang.model.element.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * source of {@code JsonBytes}, the class generated {@code writeTo(JsonBytes out)} methods write to.
+ * It is generated next to the classes, so they don't need this library at runtime: nested in the top-level class,
+ * or as a top-level class of the same package if nested classes are split
+ */
+@UtilityClass
+class JsonBytesClass {
+    final String NAME = "JsonBytes";
+    final ClassName SELF = ClassName.get("", NAME);
+
+    private final TypeName BYTES = ArrayTypeName.of(TypeName.BYTE);
+
+    final TypeSpec TYPE_SPEC = TypeSpec.classBuilder(NAME)
+            .addJavadoc("UTF-8 json written straight into a byte array by {@code writeTo(JsonBytes out)} methods.\n"
+                    + "The array grows if it is too small, a pre-sized array can be passed in and reused with "
+                    + "{@link #reset()}.\nStrings are escaped the same way as {@code JsonWriter} of gson does\n")
+            .addModifiers(Modifier.FINAL)
+            .addField(constant("NULL", "null"))
+            .addField(constant("TRUE", "true"))
+            .addField(constant("FALSE", "false"))
+            .addField(constant("HEX", "0123456789abcdef"))
+            .addField(BYTES, "bytes", Modifier.PRIVATE)
+            .addField(TypeName.INT, "size", Modifier.PRIVATE)
+            .addMethod(MethodSpec.constructorBuilder()
+                    .addParameter(TypeName.INT, "capacity")
+                    .addStatement("this(new byte[capacity])")
+                    .build())
+            .addMethod(MethodSpec.constructorBuilder()
+                    .addParameter(BYTES, "bytes")
+                    .addStatement("this.bytes = bytes")
+                    .build())
+            .addMethod(raw())
+            .addMethod(string())
+            .addMethod(numberOfLong())
+            .addMethod(method("number")
+                    .addParameter(TypeName.DOUBLE, "value")
+                    .beginControlFlow("if ($T.isNaN(value) || $T.isInfinite(value))", Double.class, Double.class)
+                    .addStatement("throw new $T($S + value)", IllegalArgumentException.class,
+                            "Numeric values must be finite, but was ")
+                    .endControlFlow()
+                    .addStatement("return raw($T.toString(value))", Double.class)
+                    .build())
+            .addMethod(method("number")
+                    .addJavadoc("writes number or null, integers are written without fraction\n")
+                    .addParameter(Number.class, "value")
+                    .beginControlFlow("if (value == null)")
+                    .addStatement("return nullValue()")
+                    .nextControlFlow("else if (value instanceof $T || value instanceof $T$W|| value instanceof $T"
+                            + " || value instanceof $T)",
+                            Integer.class, Long.class, Short.class, Byte.class)
+                    .addStatement("return number(value.longValue())")
+                    .nextControlFlow("else if (value instanceof $T)", Double.class)
+                    .addStatement("return number(value.doubleValue())")
+                    .endControlFlow()
+                    .addStatement("return raw(value.toString())")
+                    .build())
+            .addMethod(method("bool")
+                    .addParameter(TypeName.BOOLEAN, "value")
+                    .addStatement("put(value ? TRUE : FALSE)")
+                    .addStatement("return this")
+                    .build())
+            .addMethod(method("bool")
+                    .addParameter(Boolean.class, "value")
+                    .addStatement("return value == null ? nullValue() : bool(value.booleanValue())")
+                    .build())
+            .addMethod(method("nullValue")
+                    .addStatement("put(NULL)")
+                    .addStatement("return this")
+                    .build())
+            .addMethod(MethodSpec.methodBuilder("size")
+                    .returns(TypeName.INT)
+                    .addStatement("return size")
+                    .build())
+            .addMethod(MethodSpec.methodBuilder("reset")
+                    .addJavadoc("forgets written bytes, the array is kept for the next json\n")
+                    .addStatement("size = 0")
+                    .build())
+            .addMethod(MethodSpec.methodBuilder("toByteArray")
+                    .returns(BYTES)
+                    .addStatement("return $T.copyOf(bytes, size)", Arrays.class)
+                    .build())
+            .addMethod(MethodSpec.methodBuilder("toByteBuffer")
+                    .addJavadoc("@return buffer over the written bytes, bytes are not copied\n")
+                    .returns(ByteBuffer.class)
+                    .addStatement("return $T.wrap(bytes, 0, size)", ByteBuffer.class)
+                    .build())
+            .addMethod(escape())
+            .addMethod(MethodSpec.methodBuilder("put")
+                    .addModifiers(Modifier.PRIVATE)
+                    .addParameter(BYTES, "value")
+                    .addStatement("ensureCapacity(value.length)")
+                    .addStatement("$T.arraycopy(value, 0, bytes, size, value.length)", System.class)
+                    .addStatement("size += value.length")
+                    .build())
+            .addMethod(MethodSpec.methodBuilder("ensureCapacity")
+                    .addModifiers(Modifier.PRIVATE)
+                    .addParameter(TypeName.INT, "extra")
+                    .beginControlFlow("if (size + extra > bytes.length)")
+                    .addStatement("bytes = $T.copyOf(bytes, $T.max(bytes.length * 2, size + extra))", Arrays.class,
+                            Math.class)
+                    .endControlFlow()
+                    .build())
+            .addMethod(MethodSpec.methodBuilder("digits")
+                    .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                    .returns(TypeName.INT)
+                    .addParameter(TypeName.LONG, "value")
+                    .addStatement("int digits = 1")
+                    .beginControlFlow("while (value >= 10)")
+                    .addStatement("value /= 10")
+                    .addStatement("digits++")
+                    .endControlFlow()
+                    .addStatement("return digits")
+                    .build())
+            .build();
+
+    private FieldSpec constant(String name, String value) {
+        return FieldSpec.builder(BYTES, name, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .initializer("$S.getBytes($T.US_ASCII)", value, StandardCharsets.class)
+                .build();
+    }
+
+    /**
+     * @return builder of a method that writes a value and returns this
+     */
+    private MethodSpec.Builder method(String name) {
+        return MethodSpec.methodBuilder(name).returns(SELF);
+    }
+
+    private MethodSpec raw() {
+        return method("raw")
+                .addJavadoc("writes json text as is\n")
+                .addParameter(String.class, "json")
+                .addStatement("final int length = json.length()")
+                .addStatement("ensureCapacity(length)")
+                .beginControlFlow("for (int i = 0; i < length; i++)")
+                .addStatement("final char c = json.charAt(i)")
+                .beginControlFlow("if (c >= 0x80)")
+                .addCode("// rest is not ascii\n")
+                .addStatement("put(json.substring(i).getBytes($T.UTF_8))", StandardCharsets.class)
+                .addStatement("return this")
+                .endControlFlow()
+                .addStatement("bytes[size++] = (byte) c")
+                .endControlFlow()
+                .addStatement("return this")
+                .build();
+    }
+
+    private MethodSpec string() {
+        return method("string")
+                .addJavadoc("writes quoted and escaped string, or null\n")
+                .addParameter(String.class, "value")
+                .beginControlFlow("if (value == null)")
+                .addStatement("return nullValue()")
+                .endControlFlow()
+                .addStatement("ensureCapacity(value.length() + 2)")
+                .addStatement("bytes[size++] = '\"'")
+                .beginControlFlow("for (int i = 0; i < value.length(); i++)")
+                .addStatement("final char c = value.charAt(i)")
+                .beginControlFlow("if (c < 0x80)")
+                .beginControlFlow("if (c < 0x20 || c == '\"' || c == '\\\\')")
+                .addStatement("escape(c)")
+                .nextControlFlow("else")
+                .addStatement("ensureCapacity(1)")
+                .addStatement("bytes[size++] = (byte) c")
+                .endControlFlow()
+                .nextControlFlow("else if (c == 0x2028 || c == 0x2029)")
+                .addCode("// line and paragraph separators\n")
+                .addStatement("escape(c)")
+                .nextControlFlow("else if ($T.isHighSurrogate(c) && i + 1 < value.length()$W"
+                        + "&& $T.isLowSurrogate(value.charAt(i + 1)))", Character.class, Character.class)
+                .addStatement("final int codePoint = $T.toCodePoint(c, value.charAt(++i))", Character.class)
+                .addStatement("ensureCapacity(4)")
+                .addStatement("bytes[size++] = (byte) (0xF0 | codePoint >> 18)")
+                .addStatement("bytes[size++] = (byte) (0x80 | codePoint >> 12 & 0x3F)")
+                .addStatement("bytes[size++] = (byte) (0x80 | codePoint >> 6 & 0x3F)")
+                .addStatement("bytes[size++] = (byte) (0x80 | codePoint & 0x3F)")
+                .nextControlFlow("else if (c < 0x800)")
+                .addStatement("ensureCapacity(2)")
+                .addStatement("bytes[size++] = (byte) (0xC0 | c >> 6)")
+                .addStatement("bytes[size++] = (byte) (0x80 | c & 0x3F)")
+                .nextControlFlow("else if ($T.isSurrogate(c))", Character.class)
+                .addCode("// unpaired surrogate\n")
+                .addStatement("ensureCapacity(1)")
+                .addStatement("bytes[size++] = '?'")
+                .nextControlFlow("else")
+                .addStatement("ensureCapacity(3)")
+                .addStatement("bytes[size++] = (byte) (0xE0 | c >> 12)")
+                .addStatement("bytes[size++] = (byte) (0x80 | c >> 6 & 0x3F)")
+                .addStatement("bytes[size++] = (byte) (0x80 | c & 0x3F)")
+                .endControlFlow()
+                .endControlFlow()
+                .addStatement("ensureCapacity(1)")
+                .addStatement("bytes[size++] = '\"'")
+                .addStatement("return this")
+                .build();
+    }
+
+    private MethodSpec numberOfLong() {
+        return method("number")
+                .addParameter(TypeName.LONG, "value")
+                .beginControlFlow("if (value == $T.MIN_VALUE)", Long.class)
+                .addStatement("return raw($T.toString(value))", Long.class)
+                .endControlFlow()
+                .addStatement("ensureCapacity(20)")
+                .beginControlFlow("if (value < 0)")
+                .addStatement("bytes[size++] = '-'")
+                .addStatement("value = -value")
+                .endControlFlow()
+                .addStatement("final int digits = digits(value)")
+                .beginControlFlow("for (int i = size + digits - 1; i >= size; i--)")
+                .addStatement("bytes[i] = (byte) ('0' + value % 10)")
+                .addStatement("value /= 10")
+                .endControlFlow()
+                .addStatement("size += digits")
+                .addStatement("return this")
+                .build();
+    }
+
+    private MethodSpec escape() {
+        final MethodSpec.Builder escape = MethodSpec.methodBuilder("escape")
+                .addModifiers(Modifier.PRIVATE)
+                .addParameter(TypeName.CHAR, "c")
+                .addStatement("ensureCapacity(6)")
+                .addStatement("bytes[size++] = '\\\\'")
+                .beginControlFlow("switch (c)")
+                .addCode("case '\"':\ncase '\\\\':\n$>")
+                .addStatement("bytes[size++] = (byte) c")
+                .addStatement("break")
+                .addCode("$<");
+        for (String escaped : new String[]{"t", "b", "n", "r", "f"}) {
+            escape.addCode("case '\\$L':\n$>", escaped)
+                    .addStatement("bytes[size++] = '$L'", escaped)
+                    .addStatement("break")
+                    .addCode("$<");
+        }
+        return escape.addCode("default:\n$>")
+                .addStatement("bytes[size++] = 'u'")
+                .addStatement("bytes[size++] = HEX[c >> 12]")
+                .addStatement("bytes[size++] = HEX[c >> 8 & 0xF]")
+                .addStatement("bytes[size++] = HEX[c >> 4 & 0xF]")
+                .addStatement("bytes[size++] = HEX[c & 0xF]")
+                .addCode("$<")
+                .endControlFlow()
+                .build();
+    }
+}
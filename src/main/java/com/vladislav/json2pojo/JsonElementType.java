@@ -4,5 +4,6 @@ enum JsonElementType {
     PRIMITIVE,
     OBJECT,
     ARRAY,
-    NULL
+    NULL,
+    MIXED  // values of different types, only appears when shapes are merged
 }
@@ -0,0 +1,139 @@
+package com.vladislav.json2pojo;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * schema of a json object inferred from one or more samples.
+ * Schemas are immutable and {@link #merge(JsonSchema)} is associative,
+ * so partial schemas can be inferred separately and combined later.
+ * Json nested deeper than 1000 objects and arrays fails with {@link com.google.gson.JsonSyntaxException}
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class JsonSchema {
+    final ObjectShape shape;
+
+    public static JsonSchema of(String json) {
+        return of(json, ArraySampling.all());
+    }
+
+    /**
+     * same as {@link #of(String)}, only sampled elements of arrays are inferred
+     */
+    public static JsonSchema of(String json, ArraySampling sampling) {
+        return new JsonSchema(JsonShapes.read(new StringReader(json), sampling));
+    }
+
+    public static JsonSchema of(Reader reader) {
+        return of(reader, ArraySampling.all());
+    }
+
+    public static JsonSchema of(Reader reader, ArraySampling sampling) {
+        return new JsonSchema(JsonShapes.read(reader, sampling));
+    }
+
+    /**
+     * merges every json document, documents are read one by one and never kept together
+     */
+    public static JsonSchema of(Iterator<String> jsons) {
+        return of(jsons, ArraySampling.all());
+    }
+
+    public static JsonSchema of(Iterator<String> jsons, ArraySampling sampling) {
+        return of(jsons, sampling, ShapeFrame.DEFAULT_MAX_DEPTH);
+    }
+
+    static JsonSchema of(Iterator<String> jsons, ArraySampling sampling, int maxDepth) {
+        if (!jsons.hasNext()) {
+            throw new IllegalArgumentException("No json documents");
+        }
+        ObjectShape shape = JsonShapes.read(new StringReader(jsons.next()), sampling, maxDepth);
+        while (jsons.hasNext()) {
+            shape = shape.merge(JsonShapes.read(new StringReader(jsons.next()), sampling, maxDepth));
+        }
+        return new JsonSchema(shape);
+    }
+
+    /**
+     * merges every object of newline delimited json
+     */
+    public static JsonSchema ofNdjson(Reader reader) {
+        return ofNdjson(reader, ArraySampling.all());
+    }
+
+    public static JsonSchema ofNdjson(Reader reader, ArraySampling sampling) {
+        return new JsonSchema(JsonShapes.readAll(reader, sampling));
+    }
+
+    public static JsonSchema ofNdjson(Path path) throws IOException {
+        return ofNdjson(path, ArraySampling.all());
+    }
+
+    public static JsonSchema ofNdjson(Path path, ArraySampling sampling) throws IOException {
+        return ofNdjson(path, sampling, ShapeFrame.DEFAULT_MAX_DEPTH);
+    }
+
+    static JsonSchema ofNdjson(Path path, ArraySampling sampling, int maxDepth) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return new JsonSchema(JsonShapes.readAll(reader, sampling, maxDepth));
+        }
+    }
+
+    /**
+     * merges every object of the file, the file is either a json object or newline delimited json.
+     * The file is memory-mapped and its UTF-8 bytes are scanned without decoding them to a string,
+     * so it may be larger than the heap. Json must be strict
+     */
+    public static JsonSchema ofFile(Path path) throws IOException {
+        return ofFile(path, ArraySampling.all());
+    }
+
+    public static JsonSchema ofFile(Path path, ArraySampling sampling) throws IOException {
+        return ofFile(path, sampling, ShapeFrame.DEFAULT_MAX_DEPTH);
+    }
+
+    static JsonSchema ofFile(Path path, ArraySampling sampling, int maxDepth) throws IOException {
+        return new JsonSchema(MappedJsonShapes.readAll(path, sampling, maxDepth));
+    }
+
+    /**
+     * merges every object of every file, each file is either a json object or newline delimited json
+     */
+    public static JsonSchema ofFiles(List<Path> paths) throws IOException {
+        return ofFiles(paths, ArraySampling.all());
+    }
+
+    public static JsonSchema ofFiles(List<Path> paths, ArraySampling sampling) throws IOException {
+        return ofFiles(paths, sampling, ShapeFrame.DEFAULT_MAX_DEPTH);
+    }
+
+    static JsonSchema ofFiles(List<Path> paths, ArraySampling sampling, int maxDepth) throws IOException {
+        if (paths.isEmpty()) {
+            throw new IllegalArgumentException("No json documents");
+        }
+        ObjectShape shape = null;
+        for (Path path : paths) {
+            final ObjectShape next = ofNdjson(path, sampling, maxDepth).shape;
+            shape = shape == null ? next : shape.merge(next);
+        }
+        return new JsonSchema(shape);
+    }
+
+    public JsonSchema merge(JsonSchema other) {
+        return new JsonSchema(shape.merge(other.shape));
+    }
+
+    /**
+     * @return structural fingerprint, equal schemas have equal fingerprints
+     */
+    public long fingerprint() {
+        return ShapeFingerprints.of(shape);
+    }
+}
@@ -0,0 +1,24 @@
+package com.vladislav.json2pojo;
+
+/**
+ * inferred shape of a json value, keeps only what is needed to generate a field for it
+ */
+abstract class JsonShape {
+
+    static final JsonShape NULL = new JsonShape() {
+        @Override
+        JsonElementType getType() {
+            return JsonElementType.NULL;
+        }
+    };
+
+    static final JsonShape MIXED = new JsonShape() {
+        @Override
+        JsonElementType getType() {
+            return JsonElementType.MIXED;
+        }
+    };
+
+    abstract JsonElementType getType();
+
+}
@@ -0,0 +1,337 @@
+package com.vladislav.json2pojo;
+
+import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.Map;
+
+import static com.vladislav.json2pojo.Utils.*;
+
+/**
+ * folds json values into {@link JsonShape}, either from a parsed tree or straight from a token stream.
+ * Nested values are walked with a chain of {@link ShapeFrame} instead of recursion, so the depth of json
+ * is limited only by the max depth, {@value ShapeFrame#DEFAULT_MAX_DEPTH} unless it is given
+ */
+@UtilityClass
+class JsonShapes {
+
+    public ObjectShape of(JsonObject jsonObject) {
+        return of(jsonObject, ArraySampling.all());
+    }
+
+    public ObjectShape of(JsonObject jsonObject, ArraySampling sampling) {
+        return of(jsonObject, sampling, ShapeFrame.DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * @param maxDepth objects and arrays nested deeper than this fail with {@link JsonSyntaxException}
+     */
+    public ObjectShape of(JsonObject jsonObject, ArraySampling sampling, int maxDepth) {
+        return (ObjectShape) of((JsonElement) jsonObject, sampling, maxDepth);
+    }
+
+    public JsonShape of(JsonElement jsonElement, ArraySampling sampling) {
+        return of(jsonElement, sampling, ShapeFrame.DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * walks the tree without recursion, objects and arrays being folded are kept as a chain of frames
+     */
+    public JsonShape of(JsonElement jsonElement, ArraySampling sampling, int maxDepth) {
+        TreeFrame frame = null;
+        JsonElement element = jsonElement;
+        while (true) {
+            JsonShape shape = null;
+            switch (determineTypeOfJsonElement(element)) {
+                case PRIMITIVE:
+                    shape = of(element.getAsJsonPrimitive());
+                    break;
+                case OBJECT:
+                case ARRAY:
+                    if (frame != null) {
+                        frame.checkDepth(maxDepth, "");
+                    }
+                    frame = TreeFrame.of(frame, element, sampling);
+                    break;
+                default:
+                    shape = JsonShape.NULL;
+            }
+            while (true) {  // folds finished frames into their parents until some frame has a value to fold
+                if (shape != null) {
+                    if (frame == null) {
+                        return shape;
+                    }
+                    frame.add(shape);
+                }
+                element = frame.next();
+                if (element != null) {
+                    break;
+                }
+                shape = frame.finish();
+                frame = (TreeFrame) frame.parent;
+            }
+        }
+    }
+
+    public PrimitiveShape of(JsonPrimitive jsonPrimitive) {
+        final JsonPrimitiveType primitiveType = determineTypeOfJsonPrimitive(jsonPrimitive);
+        if (primitiveType == JsonPrimitiveType.NUMBER) {
+            return new PrimitiveShape(primitiveType, determineTypeOfNumber(jsonPrimitive.getAsNumber()), null, 0);
+        } else if (primitiveType == JsonPrimitiveType.STRING) {
+            return string(jsonPrimitive.getAsString());
+        }
+        return new PrimitiveShape(primitiveType, null, null, 0);
+    }
+
+    /**
+     * reads a single json object from reader without building a tree of it,
+     * heap usage depends on the size of the schema, not on the size of the document
+     */
+    public ObjectShape read(Reader reader) {
+        return read(reader, ArraySampling.all());
+    }
+
+    public ObjectShape read(Reader reader, ArraySampling sampling) {
+        return read(reader, sampling, ShapeFrame.DEFAULT_MAX_DEPTH);
+    }
+
+    public ObjectShape read(Reader reader, ArraySampling sampling, int maxDepth) {
+        final JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.setLenient(true);
+        try {
+            final ObjectShape objectShape = readDocument(jsonReader, sampling, maxDepth);
+            if (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("Did not consume the entire document.");
+            }
+            return objectShape;
+        } catch (MalformedJsonException | NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    /**
+     * reads newline delimited json objects one by one and merges them into one shape
+     */
+    public ObjectShape readAll(Reader reader) {
+        return readAll(reader, ArraySampling.all());
+    }
+
+    public ObjectShape readAll(Reader reader, ArraySampling sampling) {
+        return readAll(reader, sampling, ShapeFrame.DEFAULT_MAX_DEPTH);
+    }
+
+    public ObjectShape readAll(Reader reader, ArraySampling sampling, int maxDepth) {
+        final JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.setLenient(true);  // lenient reader accepts multiple top-level values
+        try {
+            ObjectShape objectShape = null;
+            while (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+                final ObjectShape next = readDocument(jsonReader, sampling, maxDepth);
+                objectShape = objectShape == null ? next : objectShape.merge(next);
+            }
+            if (objectShape == null) {
+                throw new IllegalStateException("Not a JSON Object: " + JsonToken.END_DOCUMENT);
+            }
+            return objectShape;
+        } catch (MalformedJsonException | NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    /**
+     * merges shapes as if values of both were seen at the same place,
+     * merge is associative, so shapes can be merged in any grouping
+     */
+    public JsonShape merge(JsonShape shape1, JsonShape shape2) {
+        final JsonElementType type1 = shape1.getType();
+        final JsonElementType type2 = shape2.getType();
+        if (type1 == JsonElementType.NULL) {
+            return shape2;
+        } else if (type2 == JsonElementType.NULL) {
+            return shape1;
+        } else if (type1 != type2 || type1 == JsonElementType.MIXED) {
+            return JsonShape.MIXED;
+        }
+        switch (type1) {
+            case PRIMITIVE:
+                final PrimitiveShape primitive1 = (PrimitiveShape) shape1;
+                final PrimitiveShape primitive2 = (PrimitiveShape) shape2;
+                if (primitive1.primitiveType != primitive2.primitiveType) {
+                    return JsonShape.MIXED;
+                } else if (primitive1.values != null) {  // strings
+                    final ValueDomain values = primitive1.values.merge(primitive2.values);
+                    final int formats = primitive1.formats & primitive2.formats;
+                    if (values == primitive1.values && formats == primitive1.formats) {
+                        return primitive1;
+                    }
+                    return values == primitive2.values && formats == primitive2.formats ? primitive2
+                            : new PrimitiveShape(JsonPrimitiveType.STRING, null, values, formats);
+                } else if (primitive1.numberType == null) {
+                    return primitive1;
+                }
+                final NumberType numberType = primitive1.numberType.join(primitive2.numberType);
+                if (numberType == primitive1.numberType) {
+                    return primitive1;
+                }
+                return numberType == primitive2.numberType ? primitive2
+                        : new PrimitiveShape(JsonPrimitiveType.NUMBER, numberType, null, 0);
+            case OBJECT:
+                return ((ObjectShape) shape1).merge((ObjectShape) shape2);
+            default:
+                return ((ArrayShape) shape1).merge((ArrayShape) shape2);
+        }
+    }
+
+    PrimitiveShape string(String value) {
+        return new PrimitiveShape(JsonPrimitiveType.STRING, null, ValueDomain.of(value), ValueFormats.of(value));
+    }
+
+    private ObjectShape readDocument(JsonReader jsonReader, ArraySampling sampling, int maxDepth)
+            throws IOException {
+        final JsonToken token = jsonReader.peek();
+        if (token != JsonToken.BEGIN_OBJECT) {
+            throw new IllegalStateException("Not a JSON Object: " + token);
+        }
+        return (ObjectShape) read(jsonReader, sampling, maxDepth);
+    }
+
+    /**
+     * reads the next value without recursion, objects and arrays being read are kept as a chain of frames
+     */
+    private JsonShape read(JsonReader jsonReader, ArraySampling sampling, int maxDepth) throws IOException {
+        ShapeFrame frame = null;
+        while (true) {
+            JsonShape shape = null;
+            switch (jsonReader.peek()) {
+                case BEGIN_OBJECT:
+                    if (frame != null) {
+                        frame.checkDepth(maxDepth, " at path " + jsonReader.getPath());
+                    }
+                    jsonReader.beginObject();
+                    frame = ShapeFrame.object(frame);
+                    break;
+                case BEGIN_ARRAY:
+                    if (frame != null) {
+                        frame.checkDepth(maxDepth, " at path " + jsonReader.getPath());
+                    }
+                    final ArraySampler sampler = sampling.newSampler(-1);
+                    jsonReader.beginArray();
+                    frame = ShapeFrame.array(frame, sampler);
+                    break;
+                case STRING:
+                    shape = string(jsonReader.nextString());
+                    break;
+                case NUMBER:
+                    final NumberType numberType = determineTypeOfNumber(jsonReader.nextString());
+                    shape = new PrimitiveShape(JsonPrimitiveType.NUMBER, numberType, null, 0);
+                    break;
+                case BOOLEAN:
+                    jsonReader.skipValue();
+                    shape = new PrimitiveShape(JsonPrimitiveType.BOOLEAN, null, null, 0);
+                    break;
+                case NULL:
+                    jsonReader.skipValue();
+                    shape = JsonShape.NULL;
+                    break;
+                default:
+                    throw new IllegalArgumentException();
+            }
+            while (true) {  // folds finished frames into their parents until some frame has a value to read
+                if (shape != null) {
+                    if (frame == null) {
+                        return shape;
+                    }
+                    frame.add(shape);
+                }
+                if (hasNext(jsonReader, frame)) {
+                    break;
+                }
+                shape = frame.finish();
+                frame = frame.parent;
+            }
+        }
+    }
+
+    /**
+     * moves the reader to the next value of the frame that must be folded, elements left out by sampling are skipped
+     *
+     * @return false if the frame has no more values, its closing bracket is read then
+     */
+    private boolean hasNext(JsonReader jsonReader, ShapeFrame frame) throws IOException {
+        if (frame.isObject()) {
+            if (jsonReader.hasNext()) {
+                frame.name = jsonReader.nextName();
+                return true;
+            }
+            jsonReader.endObject();
+            return false;
+        }
+        while (jsonReader.hasNext()) {
+            if (frame.wants()) {
+                return true;
+            }
+            jsonReader.skipValue();
+            frame.skip();
+        }
+        jsonReader.endArray();
+        return false;
+    }
+
+    /**
+     * frame of a parsed object or array, values are taken from the tree in order
+     */
+    private static final class TreeFrame extends ShapeFrame {
+        private final Iterator<Map.Entry<String, JsonElement>> fields;  // null if the frame is an array
+        private final Iterator<JsonElement> elements;  // null if the frame is an object
+
+        private TreeFrame(ShapeFrame parent, ObjectShape objectShape, ArraySampler sampler,
+                          Iterator<Map.Entry<String, JsonElement>> fields, Iterator<JsonElement> elements) {
+            super(parent, objectShape, sampler);
+            this.fields = fields;
+            this.elements = elements;
+        }
+
+        static TreeFrame of(TreeFrame parent, JsonElement jsonElement, ArraySampling sampling) {
+            if (jsonElement.isJsonObject()) {
+                return new TreeFrame(parent, new ObjectShape(), null,
+                        jsonElement.getAsJsonObject().entrySet().iterator(), null);
+            }
+            final JsonArray jsonArray = jsonElement.getAsJsonArray();
+            return new TreeFrame(parent, null, sampling.newSampler(jsonArray.size()), null, jsonArray.iterator());
+        }
+
+        /**
+         * @return next value that must be folded, null if there are none.
+         * Elements of an array are offered to the sampler until it is done
+         */
+        JsonElement next() {
+            if (isObject()) {
+                if (!fields.hasNext()) {
+                    return null;
+                }
+                final Map.Entry<String, JsonElement> entry = fields.next();
+                name = entry.getKey();
+                return entry.getValue();
+            }
+            while (elements.hasNext() && !sampler.isDone(index)) {
+                final JsonElement element = elements.next();
+                if (sampler.wants(index)) {
+                    return element;
+                }
+                skip();
+            }
+            return null;
+        }
+    }
+
+}
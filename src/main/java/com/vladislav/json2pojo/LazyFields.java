@@ -0,0 +1,58 @@
+package com.vladislav.json2pojo;
+
+import com.squareup.javapoet.*;
+import com.vladislav.json2pojo.pojo.TypeSpecBuilderWrapper;
+import lombok.RequiredArgsConstructor;
+
+import javax.lang.model.element.Modifier;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * gives every field of a generated class, a list or an array a private transient field for raw json of its value,
+ * see {@link RawJson}, and registers the pair in {@link TypeSpecBuilderWrapper#lazyFields}.
+ * Generated read methods fill the raw field instead of the field, getters decode it on first access,
+ * see {@link StreamingReaders}. Runs before {@link FinalFields}, which leaves both fields mutable
+ */
+@RequiredArgsConstructor
+class LazyFields implements Consumer<TypeSpecBuilderWrapper> {
+    private static final ClassName LIST = ClassName.get(List.class);
+
+    private final Set<TypeName> collectionTypes;  // primitive collections that streaming readers skip
+
+    @Override
+    public void accept(TypeSpecBuilderWrapper wrapper) {
+        final Set<String> names = new HashSet<>();
+        final List<FieldSpec> lazyFields = new ArrayList<>();
+        for (FieldSpec fieldSpec : wrapper.typeSpec.fieldSpecs) {
+            names.add(fieldSpec.name);
+            if (isLazy(wrapper, fieldSpec)) {
+                lazyFields.add(fieldSpec);
+            }
+        }
+        for (FieldSpec fieldSpec : lazyFields) {
+            String rawName = fieldSpec.name + "Json";
+            for (int i = 2; names.contains(rawName); i++) {
+                rawName = fieldSpec.name + "Json" + i;
+            }
+            names.add(rawName);
+            wrapper.typeSpec.addField(String.class, rawName, Modifier.PRIVATE, Modifier.TRANSIENT);
+            wrapper.lazyFields.put(fieldSpec.name, rawName);
+        }
+    }
+
+    private boolean isLazy(TypeSpecBuilderWrapper wrapper, FieldSpec fieldSpec) {
+        if (fieldSpec.hasModifier(Modifier.STATIC) || !wrapper.jsonNames.containsKey(fieldSpec.name)
+                || wrapper.enumFields.contains(fieldSpec.name) || wrapper.base64Fields.contains(fieldSpec.name)) {
+            return false;
+        }
+        final TypeName type = fieldSpec.type;
+        if (type instanceof ParameterizedTypeName) {
+            return ((ParameterizedTypeName) type).rawType.equals(LIST);
+        } else if (type instanceof ArrayTypeName) {
+            return StreamingReaders.isReadable(((ArrayTypeName) type).componentType);
+        }
+        return type instanceof ClassName && !((ClassName) type).packageName().startsWith("java.")
+                && !collectionTypes.contains(type);
+    }
+}
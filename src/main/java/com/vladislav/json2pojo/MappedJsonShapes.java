@@ -0,0 +1,652 @@
+package com.vladislav.json2pojo;
+
+import com.google.gson.JsonSyntaxException;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * folds json of a file into shapes straight from its UTF-8 bytes. The file is memory-mapped window by window,
+ * so neither its text nor a tree of it is ever on the heap, whatever the size of the file.
+ * Field names are hashed from their bytes and decoded only when they are met first, shapes of numbers
+ * and of repeated strings are shared, so folding a value allocates nothing in the usual case.
+ * The file is either a json object or newline delimited json, unlike {@link JsonShapes} json must be strict
+ */
+final class MappedJsonShapes {
+    private static final int WINDOW_SIZE = 1 << 30;
+    private static final int MAX_CACHED = 1 << 16;  // names and strings, the rest are decoded every time
+    private static final int MAX_FAST_DIGITS = 15;  // decimals this short never round to an integer
+    private static final int MAX_LONG_DIGITS = 18;  // integers this short always fit a long
+    private static final byte[] BYTE_ORDER_MARK = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final PrimitiveShape BOOLEAN = new PrimitiveShape(JsonPrimitiveType.BOOLEAN, null, null, 0);
+    private static final PrimitiveShape[] NUMBERS = new PrimitiveShape[NumberType.values().length];
+
+    static {
+        for (NumberType numberType : NumberType.values()) {
+            NUMBERS[numberType.ordinal()] = new PrimitiveShape(JsonPrimitiveType.NUMBER, numberType, null, 0);
+        }
+    }
+
+    private final FileChannel channel;
+    private final long size;
+    private final ArraySampling sampling;
+    private final int maxDepth;
+    private final ByteTable<String> names = new ByteTable<>();
+    private final ByteTable<PrimitiveShape> strings = new ByteTable<>();  // strings short enough to be constants
+    private final PrimitiveShape[] texts = new PrimitiveShape[1 << ValueFormat.values().length];  // by formats
+    private final AsciiChars asciiChars = new AsciiChars();
+    private byte[] scratch = new byte[256];  // decoded string or number literal
+    private boolean ascii;  // string in the scratch is ascii only
+    private boolean surrogates;  // string in the scratch has unpaired surrogates
+    private MappedByteBuffer window;
+    private long windowStart;  // offset of the window in the file
+    private int windowSize;
+    private int position;  // in the window
+
+    private MappedJsonShapes(FileChannel channel, long size, ArraySampling sampling, int maxDepth) {
+        this.channel = channel;
+        this.size = size;
+        this.sampling = sampling;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * merges every object of the file, the same as {@link JsonShapes#readAll} does
+     */
+    static ObjectShape readAll(Path path, ArraySampling sampling, int maxDepth) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new MappedJsonShapes(channel, channel.size(), sampling, maxDepth).readAll();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private ObjectShape readAll() throws IOException {
+        if (peek() == (BYTE_ORDER_MARK[0] & 0xFF)) {
+            expect(BYTE_ORDER_MARK);
+        }
+        ObjectShape objectShape = null;
+        for (int c = skipWhitespace(); c >= 0; c = skipWhitespace()) {
+            if (c != '{') {
+                throw new IllegalStateException("Not a JSON Object at byte " + offset());
+            }
+            final ObjectShape next = (ObjectShape) readNested();
+            if (objectShape == null) {
+                objectShape = next;
+            } else {
+                objectShape.absorb(next);  // both are read from this file, nobody else has them
+            }
+        }
+        if (objectShape == null) {
+            throw new IllegalStateException("Not a JSON Object: END_DOCUMENT");
+        }
+        return objectShape;
+    }
+
+    /**
+     * reads the object or array at the position without recursion,
+     * objects and arrays being read are kept as a chain of frames
+     */
+    private JsonShape readNested() throws IOException {
+        ShapeFrame frame = open(null, peek());
+        while (true) {
+            if (frame.closed) {
+                final JsonShape shape = frame.finish();
+                if (frame.parent == null) {
+                    return shape;
+                }
+                frame = frame.parent;
+                frame.add(shape);
+                nextValue(frame);
+                continue;
+            }
+            final int c = skipWhitespace();
+            if (c == '{' || c == '[') {
+                frame.checkDepth(maxDepth, " at byte " + offset());
+                frame = open(frame, c);
+            } else {
+                frame.add(readPrimitive(c));
+                nextValue(frame);
+            }
+        }
+    }
+
+    /**
+     * reads the opening bracket and, if the value is not empty, moves to its first value
+     */
+    private ShapeFrame open(ShapeFrame parent, int c) throws IOException {
+        position++;
+        final ShapeFrame frame;
+        if (c == '{') {
+            frame = ShapeFrame.object(parent);
+            if (skipWhitespace() == '}') {
+                position++;
+                frame.closed = true;
+            } else {
+                readName(frame);
+            }
+        } else {
+            frame = ShapeFrame.array(parent, sampling.newSampler(-1));
+            if (skipWhitespace() == ']') {
+                position++;
+                frame.closed = true;
+            } else {
+                skipUnwanted(frame);
+            }
+        }
+        return frame;
+    }
+
+    /**
+     * reads a comma and moves to the next value of the frame, or reads the closing bracket and closes the frame
+     */
+    private void nextValue(ShapeFrame frame) throws IOException {
+        if (frame.isObject()) {
+            if (hasNext('}')) {
+                readName(frame);
+            } else {
+                frame.closed = true;
+            }
+        } else if (hasNext(']')) {
+            skipUnwanted(frame);
+        } else {
+            frame.closed = true;
+        }
+    }
+
+    private void readName(ShapeFrame frame) throws IOException {
+        if (skipWhitespace() != '"') {
+            throw syntaxError("Expected name");
+        }
+        position++;
+        frame.name = readName();
+        if (skipWhitespace() != ':') {
+            throw syntaxError("Expected ':'");
+        }
+        position++;
+    }
+
+    /**
+     * skips elements left out by sampling, the frame is closed if the array ends
+     */
+    private void skipUnwanted(ShapeFrame frame) throws IOException {
+        while (!frame.wants()) {
+            skipValue();
+            frame.skip();
+            if (!hasNext(']')) {
+                frame.closed = true;
+                return;
+            }
+        }
+    }
+
+    private JsonShape readPrimitive(int c) throws IOException {
+        switch (c) {
+            case '"':
+                position++;
+                return readString();
+            case 't':
+                expect(TRUE);
+                return BOOLEAN;
+            case 'f':
+                expect(FALSE);
+                return BOOLEAN;
+            case 'n':
+                expect(NULL);
+                return JsonShape.NULL;
+            default:
+                if (c == '-' || isDigit(c)) {
+                    return readNumber();
+                }
+                throw unexpected(c);
+        }
+    }
+
+    /**
+     * @return name decoded when it was met first
+     */
+    private String readName() throws IOException {
+        final int length = scanString();
+        final int hash = hash(length);
+        String name = names.get(scratch, length, hash);
+        if (name == null) {
+            name = decode(length);
+            names.put(scratch, length, hash, name);
+        }
+        return name;
+    }
+
+    /**
+     * strings too long to be constants are never decoded, only their formats count
+     */
+    private PrimitiveShape readString() throws IOException {
+        final int length = scanString();
+        if (ascii ? length > ValueDomain.MAX_LENGTH : length > 3 * ValueDomain.MAX_LENGTH) {
+            final int formats = ascii ? ValueFormats.of(asciiChars.of(length)) : 0;  // formats are ascii only
+            if (texts[formats] == null) {
+                texts[formats] = new PrimitiveShape(JsonPrimitiveType.STRING, null, ValueDomain.ANY, formats);
+            }
+            return texts[formats];
+        }
+        final int hash = hash(length);
+        PrimitiveShape shape = strings.get(scratch, length, hash);
+        if (shape == null) {
+            shape = JsonShapes.string(decode(length));
+            strings.put(scratch, length, hash, shape);
+        }
+        return shape;
+    }
+
+    private PrimitiveShape readNumber() throws IOException {
+        int length = 0;
+        for (int c = peek(); isDigit(c) || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E'; c = peek()) {
+            ensureScratch(length + 1);
+            scratch[length++] = (byte) c;
+            position++;
+        }
+        return NUMBERS[numberType(length).ordinal()];
+    }
+
+    /**
+     * plain integers and short decimals are taken from the bytes, the rest are parsed
+     * the same way as {@link JsonShapes} parses them
+     */
+    private NumberType numberType(int length) {
+        final int start = scratch[0] == '-' ? 1 : 0;
+        int i = start;
+        long value = 0;
+        for (; i < length && isDigit(scratch[i]); i++) {
+            value = value * 10 + scratch[i] - '0';  // overflows only for literals that are parsed below
+        }
+        final int integerDigits = i - start;
+        if (integerDigits > 0 && integerDigits <= MAX_LONG_DIGITS) {
+            value = start == 0 ? value : -value;
+            if (i == length) {
+                return Utils.determineTypeOfInteger(value);
+            } else if (scratch[i] == '.' && length - start - 1 <= MAX_FAST_DIGITS) {
+                boolean zeroFraction = true;
+                int j = i + 1;
+                for (; j < length && isDigit(scratch[j]); j++) {
+                    zeroFraction &= scratch[j] == '0';
+                }
+                if (j == length && j > i + 1) {  // no exponent
+                    return zeroFraction ? Utils.determineTypeOfInteger(value) : NumberType.DOUBLE;
+                }
+            }
+        }
+        final String literal = new String(scratch, 0, length, StandardCharsets.US_ASCII);
+        return Utils.determineTypeOfNumber(literal);
+    }
+
+    /**
+     * decodes the string to the scratch as UTF-8, the opening quote is read already
+     *
+     * @return length of the decoded string
+     */
+    private int scanString() throws IOException {
+        int length = 0;
+        ascii = true;
+        surrogates = false;
+        for (int c = nextByte(); c != '"'; c = nextByte()) {
+            if (c < 0) {
+                throw unexpected(c);
+            }
+            ensureScratch(length + 4);
+            if (c == '\\') {
+                length = appendEscape(length);
+            } else {
+                ascii &= c < 0x80;
+                scratch[length++] = (byte) c;
+            }
+        }
+        return length;
+    }
+
+    private int appendEscape(int length) throws IOException {
+        ensureScratch(length + 8);
+        final int c = nextByte();
+        switch (c) {
+            case 'b':
+                scratch[length++] = '\b';
+                return length;
+            case 'f':
+                scratch[length++] = '\f';
+                return length;
+            case 'n':
+                scratch[length++] = '\n';
+                return length;
+            case 'r':
+                scratch[length++] = '\r';
+                return length;
+            case 't':
+                scratch[length++] = '\t';
+                return length;
+            case 'u':
+                final int unit = readHex();
+                if (!Character.isHighSurrogate((char) unit) || peek() != '\\') {
+                    return appendCodePoint(length, unit);
+                }
+                position++;
+                if (peek() != 'u') {  // other escape follows a lone surrogate
+                    return appendEscape(appendCodePoint(length, unit));
+                }
+                position++;
+                final int low = readHex();
+                return Character.isLowSurrogate((char) low)
+                        ? appendCodePoint(length, Character.toCodePoint((char) unit, (char) low))
+                        : appendCodePoint(appendCodePoint(length, unit), low);
+            default:
+                if (c == '"' || c == '\\' || c == '/') {
+                    scratch[length++] = (byte) c;
+                    return length;
+                }
+                throw syntaxError("Invalid escape sequence");
+        }
+    }
+
+    private int appendCodePoint(int length, int codePoint) {
+        if (codePoint < 0x80) {
+            scratch[length++] = (byte) codePoint;
+            return length;
+        }
+        ascii = false;
+        surrogates |= Character.isSurrogate((char) codePoint);
+        if (codePoint < 0x800) {
+            scratch[length++] = (byte) (0xC0 | codePoint >> 6);
+        } else if (codePoint < 0x10000) {  // unpaired surrogates too, see decode
+            scratch[length++] = (byte) (0xE0 | codePoint >> 12);
+            scratch[length++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+        } else {
+            scratch[length++] = (byte) (0xF0 | codePoint >> 18);
+            scratch[length++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+            scratch[length++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+        }
+        scratch[length++] = (byte) (0x80 | codePoint & 0x3F);
+        return length;
+    }
+
+    /**
+     * @return string in the scratch. Unpaired surrogates are kept, the same as gson keeps them,
+     * so the scratch is decoded by hand if there are any
+     */
+    private String decode(int length) {
+        if (!surrogates) {
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+        final StringBuilder result = new StringBuilder(length);
+        for (int i = 0; i < length; ) {
+            final int b = scratch[i] & 0xFF;
+            if (b < 0x80) {
+                result.append((char) b);
+                i++;
+            } else if (b < 0xE0) {
+                result.append((char) ((b & 0x1F) << 6 | scratch[i + 1] & 0x3F));
+                i += 2;
+            } else if (b < 0xF0) {
+                result.append((char) ((b & 0x0F) << 12 | (scratch[i + 1] & 0x3F) << 6 | scratch[i + 2] & 0x3F));
+                i += 3;
+            } else {
+                result.appendCodePoint((b & 0x07) << 18 | (scratch[i + 1] & 0x3F) << 12
+                        | (scratch[i + 2] & 0x3F) << 6 | scratch[i + 3] & 0x3F);
+                i += 4;
+            }
+        }
+        return result.toString();
+    }
+
+    private int readHex() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            final int c = nextByte();
+            final int digit = Character.digit(c, 16);
+            if (c < 0 || digit < 0) {
+                throw syntaxError("Invalid escape sequence");
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    /**
+     * skips a value without folding it, nested values are only matched by brackets
+     */
+    private void skipValue() throws IOException {
+        int c = skipWhitespace();
+        if (c == '"') {
+            position++;
+            skipString();
+            return;
+        } else if (c != '{' && c != '[') {  // number or literal
+            if (c == ',' || c == ']' || c < 0) {
+                throw unexpected(c);
+            }
+            while ((c = peek()) >= 0 && c != ',' && c != ']' && c != '}' && !isWhitespace(c)) {
+                position++;
+            }
+            return;
+        }
+        int depth = 0;
+        do {
+            c = nextByte();
+            if (c == '"') {
+                skipString();
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            } else if (c < 0) {
+                throw unexpected(c);
+            }
+        } while (depth > 0);
+    }
+
+    private void skipString() throws IOException {
+        for (int c = nextByte(); c != '"'; c = nextByte()) {
+            if (c == '\\') {
+                c = nextByte();
+            }
+            if (c < 0) {
+                throw unexpected(c);
+            }
+        }
+    }
+
+    /**
+     * reads a comma or the closing bracket
+     *
+     * @return true if another element follows
+     */
+    private boolean hasNext(char close) throws IOException {
+        final int c = skipWhitespace();
+        if (c == ',') {
+            position++;
+            return true;
+        } else if (c == close) {
+            position++;
+            return false;
+        }
+        throw syntaxError("Expected ',' or '" + close + "'");
+    }
+
+    /**
+     * @return next byte that is not whitespace, it is not read yet. -1 at the end of the file
+     */
+    private int skipWhitespace() throws IOException {
+        int c;
+        while (isWhitespace(c = peek())) {
+            position++;
+        }
+        return c;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private void expect(byte[] literal) throws IOException {
+        for (byte b : literal) {
+            if (nextByte() != (b & 0xFF)) {
+                throw syntaxError("Expected " + new String(literal, StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private int peek() throws IOException {
+        if (position == windowSize && !nextWindow()) {
+            return -1;
+        }
+        return window.get(position) & 0xFF;
+    }
+
+    private int nextByte() throws IOException {
+        final int c = peek();
+        if (c >= 0) {
+            position++;
+        }
+        return c;
+    }
+
+    /**
+     * maps the part of the file after the current window, the window is left to the garbage collector
+     *
+     * @return false at the end of the file
+     */
+    private boolean nextWindow() throws IOException {
+        final long start = windowStart + windowSize;
+        if (start >= size) {
+            return false;
+        }
+        windowSize = (int) Math.min(WINDOW_SIZE, size - start);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, windowSize);
+        windowStart = start;
+        position = 0;
+        return true;
+    }
+
+    private long offset() {
+        return windowStart + position;
+    }
+
+    private void ensureScratch(int length) {
+        if (length > scratch.length) {
+            scratch = Arrays.copyOf(scratch, Math.max(scratch.length * 2, length));
+        }
+    }
+
+    private int hash(int length) {
+        int hash = 0x811C9DC5;  // FNV-1a
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ scratch[i]) * 0x01000193;
+        }
+        return hash;
+    }
+
+    private JsonSyntaxException unexpected(int c) {
+        return syntaxError(c < 0 ? "Unexpected end of file" : "Unexpected character '" + (char) c + "'");
+    }
+
+    private JsonSyntaxException syntaxError(String message) {
+        return new JsonSyntaxException(message + " at byte " + offset());
+    }
+
+    /**
+     * ascii string in the scratch, so formats are detected without decoding it
+     */
+    private final class AsciiChars implements CharSequence {
+        private int length;
+
+        AsciiChars of(int length) {
+            this.length = length;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) scratch[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(scratch, start, end - start, StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public String toString() {
+            return new String(scratch, 0, length, StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * values keyed by byte strings, open addressing with linear probing.
+     * Stops taking new keys once there are {@link #MAX_CACHED} of them
+     */
+    private static final class ByteTable<V> {
+        private byte[][] keys = new byte[64][];
+        private int[] hashes = new int[64];
+        private Object[] values = new Object[64];
+        private int count;
+
+        @SuppressWarnings("unchecked")
+        V get(byte[] bytes, int length, int hash) {
+            final int mask = keys.length - 1;
+            for (int i = hash & mask; keys[i] != null; i = i + 1 & mask) {
+                if (hashes[i] == hash && Arrays.equals(keys[i], 0, keys[i].length, bytes, 0, length)) {
+                    return (V) values[i];
+                }
+            }
+            return null;
+        }
+
+        void put(byte[] bytes, int length, int hash, V value) {
+            if (count == MAX_CACHED) {
+                return;
+            } else if (2 * (count + 1) > keys.length) {
+                grow();
+            }
+            insert(Arrays.copyOf(bytes, length), hash, value);
+            count++;
+        }
+
+        private void insert(byte[] key, int hash, Object value) {
+            final int mask = keys.length - 1;
+            int i = hash & mask;
+            while (keys[i] != null) {
+                i = i + 1 & mask;
+            }
+            keys[i] = key;
+            hashes[i] = hash;
+            values[i] = value;
+        }
+
+        private void grow() {
+            final byte[][] oldKeys = keys;
+            final int[] oldHashes = hashes;
+            final Object[] oldValues = values;
+            keys = new byte[oldKeys.length * 2][];
+            hashes = new int[oldKeys.length * 2];
+            values = new Object[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    insert(oldKeys[i], oldHashes[i], oldValues[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.vladislav.json2pojo;
+
+import com.squareup.javapoet.ClassName;
+import lombok.RequiredArgsConstructor;
+
+import java.util.*;
+
+/**
+ * nested classes already generated in one file, keyed by the fingerprint of their shape,
+ * so objects of the same shape share a single class
+ */
+@RequiredArgsConstructor
+class NestedClassCache {
+    private final ShapeTypes types;  // details of shapes that make their classes differ
+    private final Map<JsonShape, Long> fingerprints = new IdentityHashMap<>();
+    private final Map<Long, List<Pair<ObjectShape, ClassName>>> classes = new HashMap<>();
+
+    ClassName get(ObjectShape objectShape) {
+        final List<Pair<ObjectShape, ClassName>> candidates =
+                classes.get(ShapeFingerprints.of(objectShape, fingerprints, types));
+        if (candidates != null) {
+            for (Pair<ObjectShape, ClassName> candidate : candidates) {
+                if (ShapeFingerprints.isSameShape(candidate.value1, objectShape, types)) {
+                    return candidate.value2;
+                }
+            }
+        }
+        return null;
+    }
+
+    void put(ObjectShape objectShape, ClassName className) {
+        classes.computeIfAbsent(ShapeFingerprints.of(objectShape, fingerprints, types),
+                fingerprint -> new ArrayList<>(1))
+                .add(Pair.of(objectShape, className));
+    }
+}
@@ -1,7 +1,64 @@
 package com.vladislav.json2pojo;
 
+/**
+ * widths of json numbers, from the narrowest to the widest. Big integers and doubles don't hold each other,
+ * so they join into big decimals, see {@link #join(NumberType)}
+ */
 enum NumberType {
+    BYTE,
+    SHORT,
     INT,
     LONG,
-    DOUBLE
+    BIG_INTEGER,  // integer out of the range of long
+    DOUBLE,
+    BIG_DECIMAL;  // number that loses precision as a double
+
+    private static final int NARROWER_THAN_INT = 1 << BYTE.ordinal() | 1 << SHORT.ordinal();
+    private static final int BIG = 1 << BIG_INTEGER.ordinal() | 1 << BIG_DECIMAL.ordinal();
+    private static final int BIG_INTEGER_AND_DOUBLE = 1 << BIG_INTEGER.ordinal() | 1 << DOUBLE.ordinal();
+    private static final NumberType[] VALUES = values();
+
+    /**
+     * @return type that holds numbers of both types: the wider one, or big decimal for a big integer and a double
+     */
+    NumberType join(NumberType other) {
+        if (this == BIG_INTEGER && other == DOUBLE || this == DOUBLE && other == BIG_INTEGER) {
+            return BIG_DECIMAL;
+        }
+        return compareTo(other) >= 0 ? this : other;
+    }
+
+    /**
+     * same as {@link #join(NumberType)} of all types of a bit mask indexed by ordinal
+     *
+     * @return null if there are no types
+     */
+    static NumberType join(int numberTypes) {
+        if ((numberTypes & BIG_INTEGER_AND_DOUBLE) == BIG_INTEGER_AND_DOUBLE) {
+            return BIG_DECIMAL;
+        }
+        return numberTypes == 0 ? null : VALUES[31 - Integer.numberOfLeadingZeros(numberTypes)];
+    }
+
+    /**
+     * @return int for types narrower than int, numbers are narrowed only in compact layout
+     */
+    NumberType atLeastInt() {
+        return compareTo(INT) < 0 ? INT : this;
+    }
+
+    /**
+     * same as {@link #atLeastInt()} for a bit mask of types indexed by ordinal
+     */
+    static int atLeastInt(int numberTypes) {
+        return (numberTypes & NARROWER_THAN_INT) == 0 ? numberTypes
+                : numberTypes & ~NARROWER_THAN_INT | 1 << INT.ordinal();
+    }
+
+    /**
+     * @return bit mask with big numbers taken as doubles, they get their own types only if they are detected
+     */
+    static int orDouble(int numberTypes) {
+        return (numberTypes & BIG) == 0 ? numberTypes : numberTypes & ~BIG | 1 << DOUBLE.ordinal();
+    }
 }
@@ -0,0 +1,70 @@
+package com.vladislav.json2pojo;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+class ObjectShape extends JsonShape {
+    public final Map<String, JsonShape> fields = new LinkedHashMap<>();
+    public final Set<String> nullableFields = new HashSet<>();  // fields that were null or missing in some sample
+
+    @Override
+    JsonElementType getType() {
+        return JsonElementType.OBJECT;
+    }
+
+    void put(String fieldName, JsonShape jsonShape) {
+        fields.put(fieldName, jsonShape);
+        if (jsonShape == JsonShape.NULL) {
+            nullableFields.add(fieldName);
+        }
+    }
+
+    boolean isNullable(String fieldName) {
+        return nullableFields.contains(fieldName);
+    }
+
+    /**
+     * union of the fields of both objects, a field missing on one side becomes nullable.
+     * Neither shape is modified
+     */
+    ObjectShape merge(ObjectShape other) {
+        final ObjectShape result = copy();
+        result.absorb(other);
+        return result;
+    }
+
+    /**
+     * same as {@link #merge(ObjectShape)}, but the union is kept in this shape, so objects can be merged
+     * one by one without copying. Other shape is not modified
+     */
+    void absorb(ObjectShape other) {
+        for (String fieldName : fields.keySet()) {
+            if (!other.fields.containsKey(fieldName)) {
+                nullableFields.add(fieldName);
+            }
+        }
+        for (Map.Entry<String, JsonShape> entry : other.fields.entrySet()) {
+            final String fieldName = entry.getKey();
+            final JsonShape shape = fields.get(fieldName);
+            if (shape == null) {
+                nullableFields.add(fieldName);
+                fields.put(fieldName, entry.getValue());
+            } else {
+                fields.put(fieldName, JsonShapes.merge(shape, entry.getValue()));
+            }
+        }
+        nullableFields.addAll(other.nullableFields);
+    }
+
+    /**
+     * @return shape with the same fields, shapes of the fields are shared
+     */
+    ObjectShape copy() {
+        final ObjectShape result = new ObjectShape();
+        result.fields.putAll(fields);
+        result.nullableFields.addAll(nullableFields);
+        return result;
+    }
+}
@@ -0,0 +1,302 @@
+package com.vladislav.json2pojo;
+
+import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import static com.vladislav.json2pojo.Utils.*;
+
+/**
+ * folds json values into {@link JsonShape} on a fork-join pool.
+ * Large arrays and batches of documents are split into parts, each part is folded separately
+ * and the partial shapes are combined in order, so the result is the same as the sequential one
+ */
+@RequiredArgsConstructor
+class ParallelJsonShapes {
+    private final ForkJoinPool forkJoinPool;
+    private final int threshold;  // arrays and batches not larger than this are folded by a single task
+    private final ArraySampling sampling;
+    private final int maxDepth;  // objects and arrays nested deeper fail, see ShapeFrame
+
+    /**
+     * builds the tree of a json object without recursion, unlike {@link com.google.gson.JsonParser},
+     * so json nested deeper than max depth fails the same way as when it is streamed, see {@link JsonShapes#read}
+     */
+    public JsonObject parse(String json) {
+        final JsonReader jsonReader = new JsonReader(new StringReader(json));
+        jsonReader.setLenient(true);
+        try {
+            if (jsonReader.peek() != JsonToken.BEGIN_OBJECT) {
+                throw new IllegalStateException("Not a JSON Object: " + jsonReader.peek());
+            }
+            final Deque<JsonElement> parents = new ArrayDeque<>();  // objects and arrays being read
+            final JsonObject root = new JsonObject();
+            JsonElement element = root;
+            jsonReader.beginObject();
+            String name = null;
+            while (true) {
+                if (element.isJsonObject() || element.isJsonArray()) {
+                    parents.push(element);
+                }
+                while (!jsonReader.hasNext()) {  // closes finished objects and arrays
+                    if (parents.pop().isJsonObject()) {
+                        jsonReader.endObject();
+                    } else {
+                        jsonReader.endArray();
+                    }
+                    if (parents.isEmpty()) {
+                        if (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+                            throw new JsonSyntaxException("Did not consume the entire document.");
+                        }
+                        return root;
+                    }
+                }
+                final JsonElement parent = parents.peek();
+                if (parent.isJsonObject()) {
+                    name = jsonReader.nextName();
+                }
+                element = next(jsonReader, parents.size());
+                if (parent.isJsonObject()) {
+                    parent.getAsJsonObject().add(name, element);
+                } else {
+                    parent.getAsJsonArray().add(element);
+                }
+            }
+        } catch (MalformedJsonException | NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    public ObjectShape of(JsonObject jsonObject) {
+        return forkJoinPool.invoke(ForkJoinTask.adapt(() -> ofObject(jsonObject, 1)));
+    }
+
+    /**
+     * merges every json document, at most a few batches of documents are kept in memory at once
+     */
+    public ObjectShape readAll(Iterator<String> jsons) {
+        final Deque<ForkJoinTask<ObjectShape>> tasks = new ArrayDeque<>();
+        ObjectShape objectShape = null;
+        while (jsons.hasNext()) {
+            final List<String> batch = new ArrayList<>();
+            while (jsons.hasNext() && batch.size() < threshold) {
+                batch.add(jsons.next());
+            }
+            tasks.add(forkJoinPool.submit(() -> readBatch(batch)));
+            if (tasks.size() > forkJoinPool.getParallelism()) {
+                objectShape = merge(objectShape, tasks.poll().join());
+            }
+        }
+        while (!tasks.isEmpty()) {
+            objectShape = merge(objectShape, tasks.poll().join());
+        }
+        if (objectShape == null) {
+            throw new IllegalArgumentException("No json documents");
+        }
+        return objectShape;
+    }
+
+    /**
+     * merges every object of every file, each file is either a json object or newline delimited json
+     */
+    public ObjectShape readAll(List<Path> paths) throws IOException {
+        if (paths.isEmpty()) {
+            throw new IllegalArgumentException("No json documents");
+        }
+        try {
+            return forkJoinPool.invoke(new FilesTask(paths, 0, paths.size()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @param depth of the element if it is an object or array, recursion is as deep as json, up to max depth
+     */
+    private JsonShape of(JsonElement jsonElement, int depth) {
+        switch (determineTypeOfJsonElement(jsonElement)) {
+            case PRIMITIVE:
+                return JsonShapes.of(jsonElement.getAsJsonPrimitive());
+            case OBJECT:
+                if (depth > maxDepth) {
+                    throw ShapeFrame.tooDeep(maxDepth, "");
+                }
+                return ofObject(jsonElement.getAsJsonObject(), depth);
+            case ARRAY:
+                if (depth > maxDepth) {
+                    throw ShapeFrame.tooDeep(maxDepth, "");
+                }
+                final JsonArray jsonArray = jsonElement.getAsJsonArray();
+                if (!sampling.isAll()) {  // sampled arrays are small enough for a single task
+                    return ofSampled(jsonArray, depth);
+                }
+                return new ArrayTask(jsonArray, 0, jsonArray.size(), depth).invoke();
+            default:
+                return JsonShape.NULL;
+        }
+    }
+
+    private ObjectShape ofObject(JsonObject jsonObject, int depth) {
+        final ObjectShape objectShape = new ObjectShape();
+        for (Map.Entry<String, JsonElement> entry : jsonObject.entrySet()) {
+            objectShape.put(entry.getKey(), of(entry.getValue(), depth + 1));
+        }
+        return objectShape;
+    }
+
+    private ArrayShape ofSampled(JsonArray jsonArray, int depth) {
+        final ArraySampler sampler = sampling.newSampler(jsonArray.size());
+        for (int i = 0; i < jsonArray.size() && !sampler.isDone(i); i++) {
+            if (sampler.wants(i)) {
+                sampler.add(i, of(jsonArray.get(i), depth + 1));
+            }
+        }
+        return sampler.finish();
+    }
+
+    /**
+     * @return next value, objects and arrays are opened and empty
+     */
+    private JsonElement next(JsonReader jsonReader, int depth) throws IOException {
+        switch (jsonReader.peek()) {
+            case BEGIN_OBJECT:
+                if (depth >= maxDepth) {
+                    throw ShapeFrame.tooDeep(maxDepth, " at path " + jsonReader.getPath());
+                }
+                jsonReader.beginObject();
+                return new JsonObject();
+            case BEGIN_ARRAY:
+                if (depth >= maxDepth) {
+                    throw ShapeFrame.tooDeep(maxDepth, " at path " + jsonReader.getPath());
+                }
+                jsonReader.beginArray();
+                return new JsonArray();
+            case STRING:
+                return new JsonPrimitive(jsonReader.nextString());
+            case NUMBER:
+                return new JsonPrimitive(new NumberLiteral(jsonReader.nextString()));
+            case BOOLEAN:
+                return new JsonPrimitive(jsonReader.nextBoolean());
+            case NULL:
+                jsonReader.nextNull();
+                return JsonNull.INSTANCE;
+            default:
+                throw new IllegalArgumentException();
+        }
+    }
+
+    private ObjectShape readBatch(List<String> jsons) {
+        ObjectShape objectShape = null;
+        for (String json : jsons) {
+            objectShape = merge(objectShape, JsonShapes.read(new StringReader(json), sampling, maxDepth));
+        }
+        return objectShape;
+    }
+
+    private static ObjectShape merge(ObjectShape objectShape, ObjectShape next) {
+        return objectShape == null ? next : objectShape.merge(next);
+    }
+
+    /**
+     * number of the tree kept as its literal, numbers are typed from their literals, see {@link JsonShapes}
+     */
+    @RequiredArgsConstructor
+    private static final class NumberLiteral extends Number {
+        private static final long serialVersionUID = 1L;
+
+        private final String literal;
+
+        @Override
+        public int intValue() {
+            return (int) longValue();
+        }
+
+        @Override
+        public long longValue() {
+            return new BigDecimal(literal).longValue();
+        }
+
+        @Override
+        public float floatValue() {
+            return (float) doubleValue();
+        }
+
+        @Override
+        public double doubleValue() {
+            return Double.parseDouble(literal);
+        }
+
+        @Override
+        public String toString() {
+            return literal;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private class ArrayTask extends RecursiveTask<ArrayShape> {
+        private static final long serialVersionUID = 1L;
+
+        private final JsonArray jsonArray;
+        private final int from;
+        private final int to;
+        private final int depth;  // of the array
+
+        @Override
+        protected ArrayShape compute() {
+            if (to - from <= threshold) {
+                final ArrayShape arrayShape = new ArrayShape();
+                for (int i = from; i < to && !arrayShape.isSettled(); i++) {
+                    arrayShape.add(of(jsonArray.get(i), depth + 1));
+                }
+                return arrayShape;
+            }
+            final int middle = (from + to) >>> 1;
+            final ArrayTask right = new ArrayTask(jsonArray, middle, to, depth);
+            right.fork();
+            final ArrayShape left = new ArrayTask(jsonArray, from, middle, depth).compute();
+            return left.append(right.join());
+        }
+    }
+
+    @RequiredArgsConstructor
+    private class FilesTask extends RecursiveTask<ObjectShape> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Path> paths;
+        private final int from;
+        private final int to;
+
+        @Override
+        protected ObjectShape compute() {
+            if (to - from == 1) {
+                try (Reader reader = Files.newBufferedReader(paths.get(from), StandardCharsets.UTF_8)) {
+                    return JsonShapes.readAll(reader, sampling, maxDepth);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            final int middle = (from + to) >>> 1;
+            final FilesTask right = new FilesTask(paths, middle, to);
+            right.fork();
+            final ObjectShape left = new FilesTask(paths, from, middle).compute();
+            return left.merge(right.join());
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.vladislav.json2pojo;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+class PrimitiveShape extends JsonShape {
+    public final JsonPrimitiveType primitiveType;
+    public final NumberType numberType;  // null if primitive is not a number
+    public final ValueDomain values;  // null if primitive is not a string
+    public final int formats;  // formats of the string as a bit mask, see ValueFormats
+
+    @Override
+    JsonElementType getType() {
+        return JsonElementType.PRIMITIVE;
+    }
+}
@@ -0,0 +1,133 @@
+package com.vladislav.json2pojo;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+
+/**
+ * raw json of values that generated classes decode on first access, used by generated read methods and getters,
+ * see {@link GeneratePojoFromJsonBuilder#decodeNestedLazily(boolean)}. Generated classes call it at runtime,
+ * so the library must be on their classpath.
+ * Values read from {@link #reader(String)} are cut out of the string as they are written. Values of other readers
+ * are copied token by token without whitespace: numbers are copied as they are written and strings
+ * are escaped the same way as {@link com.google.gson.stream.JsonWriter} does, so decoding it gives the same values
+ */
+@UtilityClass
+public class RawJson {
+    private final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * @return strict reader of the json, values captured from it are substrings of the json
+     */
+    public JsonReader reader(String json) {
+        return new StringJsonReader(json);
+    }
+
+    /**
+     * reads the next value of the reader, the value may have been peeked already
+     *
+     * @return json of the value, null if the value is null
+     */
+    public String capture(JsonReader reader) throws IOException {
+        if (reader instanceof StringJsonReader) {
+            return ((StringJsonReader) reader).nextRaw();
+        } else if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        final StringBuilder json = new StringBuilder();
+        int depth = 0;
+        boolean separate = false;  // next value or name follows another one and needs a comma
+        do {
+            final JsonToken token = reader.peek();
+            if (separate && token != JsonToken.END_ARRAY && token != JsonToken.END_OBJECT) {
+                json.append(',');
+            }
+            separate = true;
+            switch (token) {
+                case BEGIN_ARRAY:
+                    reader.beginArray();
+                    json.append('[');
+                    depth++;
+                    separate = false;
+                    break;
+                case END_ARRAY:
+                    reader.endArray();
+                    json.append(']');
+                    depth--;
+                    break;
+                case BEGIN_OBJECT:
+                    reader.beginObject();
+                    json.append('{');
+                    depth++;
+                    separate = false;
+                    break;
+                case END_OBJECT:
+                    reader.endObject();
+                    json.append('}');
+                    depth--;
+                    break;
+                case NAME:
+                    string(json, reader.nextName()).append(':');
+                    separate = false;
+                    break;
+                case STRING:
+                    string(json, reader.nextString());
+                    break;
+                case NUMBER:
+                    json.append(reader.nextString());  // the literal, so big and precise numbers stay as they are
+                    break;
+                case BOOLEAN:
+                    json.append(reader.nextBoolean());
+                    break;
+                case NULL:
+                    reader.nextNull();
+                    json.append("null");
+                    break;
+                default:  // END_DOCUMENT
+                    throw new IllegalStateException("Json ended inside of a value at " + reader.getPath());
+            }
+        } while (depth > 0);
+        return json.toString();
+    }
+
+    private StringBuilder string(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                escape(json, c);
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"');
+    }
+
+    private void escape(StringBuilder json, char c) {
+        switch (c) {
+            case '\t':
+                json.append("\\t");
+                break;
+            case '\b':
+                json.append("\\b");
+                break;
+            case '\n':
+                json.append("\\n");
+                break;
+            case '\r':
+                json.append("\\r");
+                break;
+            case '\f':
+                json.append("\\f");
+                break;
+            default:
+                json.append("\\u").append(HEX[c >> 12]).append(HEX[c >> 8 & 0xf]).append(HEX[c >> 4 & 0xf])
+                        .append(HEX[c & 0xf]);
+        }
+    }
+}
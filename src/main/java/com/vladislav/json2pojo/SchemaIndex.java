@@ -0,0 +1,106 @@
+package com.vladislav.json2pojo;
+
+import lombok.RequiredArgsConstructor;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * on-disk index of an incremental generation: for every generated class the samples it was inferred from
+ * with their content hashes, the digest of the inferred shape and the file that was written
+ */
+class SchemaIndex {
+    private static final int VERSION = 2;
+
+    String configurationKey;
+    final Map<String, Entry> entries = new LinkedHashMap<>();  // by qualified name of the job
+
+    @RequiredArgsConstructor
+    static class Entry {
+        final List<Input> inputs;
+        final byte[] shapeDigest;  // SHA-256, see ShapeFingerprints#digest
+        final String outputPath;  // relative to the output directory
+        final long outputSize;
+        final long outputModified;
+    }
+
+    @RequiredArgsConstructor
+    static class Input {
+        final String path;
+        final long size;
+        final long modified;
+        final byte[] contentHash;
+    }
+
+    static SchemaIndex read(Path indexFile) throws IOException {
+        final SchemaIndex index = new SchemaIndex();
+        if (!Files.exists(indexFile)) {
+            return index;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != VERSION) {
+                return index;  // written by another version, everything will be regenerated
+            }
+            index.configurationKey = in.readUTF();
+            final int entryCount = in.readInt();
+            for (int i = 0; i < entryCount; i++) {
+                final String key = in.readUTF();
+                final int inputCount = in.readInt();
+                final List<Input> inputs = new ArrayList<>(inputCount);
+                for (int j = 0; j < inputCount; j++) {
+                    final String path = in.readUTF();
+                    final long size = in.readLong();
+                    final long modified = in.readLong();
+                    final byte[] contentHash = new byte[in.readUnsignedByte()];
+                    in.readFully(contentHash);
+                    inputs.add(new Input(path, size, modified, contentHash));
+                }
+                final byte[] shapeDigest = new byte[in.readUnsignedByte()];
+                in.readFully(shapeDigest);
+                index.entries.put(key, new Entry(inputs, shapeDigest, in.readUTF(), in.readLong(), in.readLong()));
+            }
+        } catch (EOFException e) {
+            index.configurationKey = null;  // truncated index is as good as none
+            index.entries.clear();
+        }
+        return index;
+    }
+
+    /**
+     * writes index to a temporary file first, so a crash never leaves a half written index
+     */
+    void write(Path indexFile) throws IOException {
+        final Path directory = indexFile.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        final Path temporary = Files.createTempFile(directory, indexFile.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(VERSION);
+            out.writeUTF(configurationKey);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+                final Entry entry = mapEntry.getValue();
+                out.writeUTF(mapEntry.getKey());
+                out.writeInt(entry.inputs.size());
+                for (Input input : entry.inputs) {
+                    out.writeUTF(input.path);
+                    out.writeLong(input.size);
+                    out.writeLong(input.modified);
+                    out.writeByte(input.contentHash.length);
+                    out.write(input.contentHash);
+                }
+                out.writeByte(entry.shapeDigest.length);
+                out.write(entry.shapeDigest);
+                out.writeUTF(entry.outputPath);
+                out.writeLong(entry.outputSize);
+                out.writeLong(entry.outputModified);
+            }
+        }
+        Files.move(temporary, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
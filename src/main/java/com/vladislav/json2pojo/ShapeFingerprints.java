@@ -0,0 +1,289 @@
+package com.vladislav.json2pojo;
+
+import lombok.experimental.UtilityClass;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * structural fingerprint of a shape: field names, nullability and fingerprints of the field shapes.
+ * Equal shapes always have equal fingerprints, {@link #isSameShape} tells apart the rare collisions,
+ * a {@link #digest} stands for the shape where the shape itself is not kept.
+ * Details of primitives count only as far as they change generated types, see {@link ShapeTypes}
+ */
+@UtilityClass
+class ShapeFingerprints {
+
+    public long of(JsonShape jsonShape) {
+        return of(jsonShape, new IdentityHashMap<>(), ShapeTypes.EXACT);
+    }
+
+    /**
+     * shapes are hashed children first without recursion, a shape waits on the stack until its children are hashed
+     *
+     * @param fingerprints fingerprints already computed, nested shapes are looked up and added there
+     */
+    public long of(JsonShape jsonShape, Map<JsonShape, Long> fingerprints, ShapeTypes types) {
+        final Long known = fingerprints.get(jsonShape);
+        if (known != null) {
+            return known;
+        }
+        return childrenFirst(jsonShape, fingerprints, shape -> hash(shape, fingerprints, types));
+    }
+
+    /**
+     * @return SHA-256 of every detail of the shape, unlike fingerprints digests of different shapes never
+     * collide in practice, so an equal digest stands for an equal shape
+     */
+    public byte[] digest(JsonShape jsonShape) {
+        final MessageDigest digest = sha256();
+        final Map<JsonShape, byte[]> digests = new IdentityHashMap<>();
+        return childrenFirst(jsonShape, digests, shape -> digest(shape, digests, digest));
+    }
+
+    /**
+     * compares shapes pair by pair without recursion, pairs of nested shapes wait on the stack
+     */
+    public boolean isSameShape(JsonShape shape1, JsonShape shape2, ShapeTypes types) {
+        final Deque<JsonShape> stack = new ArrayDeque<>();
+        push(stack, shape1, shape2);
+        while (!stack.isEmpty()) {
+            if (!isSameNode(stack.pop(), stack.pop(), types, stack)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * computes values of shapes children first without recursion, a shape waits on the stack until
+     * values of its children are computed
+     *
+     * @param values values already computed, values of nested shapes are looked up and added there
+     */
+    private <T> T childrenFirst(JsonShape jsonShape, Map<JsonShape, T> values, Function<JsonShape, T> valueOf) {
+        final Deque<JsonShape> stack = new ArrayDeque<>();
+        stack.push(jsonShape);
+        while (!stack.isEmpty()) {
+            final JsonShape shape = stack.peek();
+            if (values.containsKey(shape)) {  // shared shape was pushed twice
+                stack.pop();
+                continue;
+            }
+            final int size = stack.size();
+            for (JsonShape child : children(shape)) {
+                if (!values.containsKey(child)) {
+                    stack.push(child);
+                }
+            }
+            if (stack.size() == size) {
+                values.put(shape, valueOf.apply(shape));
+                stack.pop();
+            }
+        }
+        return values.get(jsonShape);
+    }
+
+    /**
+     * @return hash of the shape, fingerprints of its children are known already
+     */
+    private long hash(JsonShape jsonShape, Map<JsonShape, Long> fingerprints, ShapeTypes types) {
+        long hash = mix(17, jsonShape.getType().ordinal());
+        switch (jsonShape.getType()) {
+            case PRIMITIVE:
+                final PrimitiveShape primitiveShape = (PrimitiveShape) jsonShape;
+                hash = mix(hash, primitiveShape.primitiveType.ordinal());
+                hash = mix(hash, ordinal(types.numberType(primitiveShape.numberType)));
+                hash = mix(hash, ordinal(types.stringFormat(primitiveShape)));
+                hash = mix(hash, types.enumValues(primitiveShape).hashCode());
+                break;
+            case OBJECT:
+                final ObjectShape objectShape = (ObjectShape) jsonShape;
+                for (Map.Entry<String, JsonShape> entry : objectShape.fields.entrySet()) {
+                    hash = mix(hash, entry.getKey().hashCode());
+                    hash = mix(hash, objectShape.isNullable(entry.getKey()) ? 1 : 0);
+                    hash = mix(hash, fingerprints.get(entry.getValue()));
+                }
+                break;
+            case ARRAY:
+                final ArrayShape arrayShape = (ArrayShape) jsonShape;
+                hash = mix(hash, arrayShape.getElementType() == null ? -1 : arrayShape.getElementType().ordinal());
+                hash = mix(hash, arrayShape.getMixedTypes());
+                hash = mix(hash, arrayShape.getPrimitiveTypes());
+                hash = mix(hash, types.numberTypes(arrayShape.getNumberTypes()));
+                hash = mix(hash, ordinal(types.stringFormat(arrayShape)));
+                hash = mix(hash, arrayShape.isNullable() ? 1 : 0);
+                if (arrayShape.getObjects() != null) {
+                    hash = mix(hash, fingerprints.get(arrayShape.getObjects()));
+                }
+                if (arrayShape.getElements() != null) {
+                    hash = mix(hash, fingerprints.get(arrayShape.getElements()));
+                }
+                break;
+        }
+        return hash;
+    }
+
+    /**
+     * @return digest of the shape, digests of its children are known already.
+     * Hashes the same details as {@link #hash} with {@link ShapeTypes#EXACT}, strings are prefixed by their length
+     */
+    private byte[] digest(JsonShape jsonShape, Map<JsonShape, byte[]> digests, MessageDigest digest) {
+        update(digest, jsonShape.getType().ordinal());
+        switch (jsonShape.getType()) {
+            case PRIMITIVE:
+                final PrimitiveShape primitiveShape = (PrimitiveShape) jsonShape;
+                update(digest, primitiveShape.primitiveType.ordinal());
+                update(digest, ordinal(primitiveShape.numberType));
+                update(digest, ordinal(ShapeTypes.EXACT.stringFormat(primitiveShape)));
+                final List<String> enumValues = ShapeTypes.EXACT.enumValues(primitiveShape);
+                update(digest, enumValues.size());
+                enumValues.forEach(value -> update(digest, value));
+                break;
+            case OBJECT:
+                final ObjectShape objectShape = (ObjectShape) jsonShape;
+                update(digest, objectShape.fields.size());
+                for (Map.Entry<String, JsonShape> entry : objectShape.fields.entrySet()) {
+                    update(digest, entry.getKey());
+                    update(digest, objectShape.isNullable(entry.getKey()) ? 1 : 0);
+                    digest.update(digests.get(entry.getValue()));
+                }
+                break;
+            case ARRAY:
+                final ArrayShape arrayShape = (ArrayShape) jsonShape;
+                update(digest, arrayShape.getElementType() == null ? -1 : arrayShape.getElementType().ordinal());
+                update(digest, arrayShape.getMixedTypes());
+                update(digest, arrayShape.getPrimitiveTypes());
+                update(digest, arrayShape.getNumberTypes());
+                update(digest, ordinal(ShapeTypes.EXACT.stringFormat(arrayShape)));
+                update(digest, arrayShape.isNullable() ? 1 : 0);
+                update(digest, arrayShape.getObjects() == null ? 0 : 1);
+                if (arrayShape.getObjects() != null) {
+                    digest.update(digests.get(arrayShape.getObjects()));
+                }
+                update(digest, arrayShape.getElements() == null ? 0 : 1);
+                if (arrayShape.getElements() != null) {
+                    digest.update(digests.get(arrayShape.getElements()));
+                }
+                break;
+        }
+        return digest.digest();
+    }
+
+    private Collection<JsonShape> children(JsonShape jsonShape) {
+        if (jsonShape.getType() == JsonElementType.OBJECT) {
+            return ((ObjectShape) jsonShape).fields.values();
+        } else if (jsonShape.getType() != JsonElementType.ARRAY) {
+            return List.of();
+        }
+        final ArrayShape arrayShape = (ArrayShape) jsonShape;
+        final List<JsonShape> children = new ArrayList<>(2);
+        if (arrayShape.getObjects() != null) {
+            children.add(arrayShape.getObjects());
+        }
+        if (arrayShape.getElements() != null) {
+            children.add(arrayShape.getElements());
+        }
+        return children;
+    }
+
+    /**
+     * compares the shapes without their nested shapes, pairs of nested shapes are pushed to the stack
+     */
+    private boolean isSameNode(JsonShape shape1, JsonShape shape2, ShapeTypes types, Deque<JsonShape> stack) {
+        if (shape1 == shape2) {
+            return true;
+        } else if (shape1.getType() != shape2.getType()) {
+            return false;
+        }
+        switch (shape1.getType()) {
+            case PRIMITIVE:
+                final PrimitiveShape primitive1 = (PrimitiveShape) shape1;
+                final PrimitiveShape primitive2 = (PrimitiveShape) shape2;
+                return primitive1.primitiveType == primitive2.primitiveType
+                        && types.numberType(primitive1.numberType) == types.numberType(primitive2.numberType)
+                        && types.stringFormat(primitive1) == types.stringFormat(primitive2)
+                        && types.enumValues(primitive1).equals(types.enumValues(primitive2));
+            case OBJECT:
+                final ObjectShape object1 = (ObjectShape) shape1;
+                final ObjectShape object2 = (ObjectShape) shape2;
+                if (object1.fields.size() != object2.fields.size()
+                        || !object1.nullableFields.equals(object2.nullableFields)) {
+                    return false;
+                }
+                final Iterator<Map.Entry<String, JsonShape>> iterator = object2.fields.entrySet().iterator();
+                for (Map.Entry<String, JsonShape> entry1 : object1.fields.entrySet()) {
+                    final Map.Entry<String, JsonShape> entry2 = iterator.next();
+                    if (!entry1.getKey().equals(entry2.getKey())) {
+                        return false;
+                    }
+                    push(stack, entry1.getValue(), entry2.getValue());
+                }
+                return true;
+            case ARRAY:
+                final ArrayShape array1 = (ArrayShape) shape1;
+                final ArrayShape array2 = (ArrayShape) shape2;
+                if (array1.getElementType() != array2.getElementType()
+                        || array1.getMixedTypes() != array2.getMixedTypes()
+                        || array1.getPrimitiveTypes() != array2.getPrimitiveTypes()
+                        || types.numberTypes(array1.getNumberTypes()) != types.numberTypes(array2.getNumberTypes())
+                        || types.stringFormat(array1) != types.stringFormat(array2)
+                        || array1.isNullable() != array2.isNullable()) {
+                    return false;
+                }
+                return pushSameOrBothNull(stack, array1.getObjects(), array2.getObjects())
+                        && pushSameOrBothNull(stack, array1.getElements(), array2.getElements());
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * @return false if only one of the shapes is null, otherwise pushes the pair unless both are null
+     */
+    private boolean pushSameOrBothNull(Deque<JsonShape> stack, JsonShape shape1, JsonShape shape2) {
+        if (shape1 == null || shape2 == null) {
+            return shape1 == shape2;
+        }
+        push(stack, shape1, shape2);
+        return true;
+    }
+
+    private void push(Deque<JsonShape> stack, JsonShape shape1, JsonShape shape2) {
+        stack.push(shape2);
+        stack.push(shape1);
+    }
+
+    private int ordinal(Enum<?> value) {
+        return value == null ? -1 : value.ordinal();
+    }
+
+    private void update(MessageDigest digest, int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+    }
+
+    private void update(MessageDigest digest, String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        update(digest, bytes.length);
+        digest.update(bytes);
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private long mix(long hash, long value) {
+        hash = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 32);
+    }
+}
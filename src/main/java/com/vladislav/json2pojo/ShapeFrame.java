@@ -0,0 +1,78 @@
+package com.vladislav.json2pojo;
+
+import com.google.gson.JsonSyntaxException;
+
+/**
+ * json object or array being folded into a shape. Frames of the enclosing values are linked through
+ * {@link #parent}, so walkers keep nesting on the heap instead of the call stack
+ * and a frame takes the same memory at any depth
+ */
+class ShapeFrame {
+    static final int DEFAULT_MAX_DEPTH = 1000;
+
+    final ShapeFrame parent;
+    final int depth;  // 1 for the top-level value
+    final ObjectShape objectShape;  // null if the frame is an array
+    final ArraySampler sampler;  // null if the frame is an object
+    String name;  // of the field being folded
+    long index;  // of the element being folded or skipped
+    boolean closed;  // closing bracket is read, for walkers that read ahead to the next value
+
+    ShapeFrame(ShapeFrame parent, ObjectShape objectShape, ArraySampler sampler) {
+        this.parent = parent;
+        this.depth = parent == null ? 1 : parent.depth + 1;
+        this.objectShape = objectShape;
+        this.sampler = sampler;
+    }
+
+    static ShapeFrame object(ShapeFrame parent) {
+        return new ShapeFrame(parent, new ObjectShape(), null);
+    }
+
+    static ShapeFrame array(ShapeFrame parent, ArraySampler sampler) {
+        return new ShapeFrame(parent, null, sampler);
+    }
+
+    boolean isObject() {
+        return objectShape != null;
+    }
+
+    /**
+     * @return true if the element at the index must be folded, otherwise it is skipped with {@link #skip()}
+     */
+    boolean wants() {
+        return !sampler.isDone(index) && sampler.wants(index);
+    }
+
+    void skip() {
+        index++;
+    }
+
+    /**
+     * adds folded value of the current field or element
+     */
+    void add(JsonShape jsonShape) {
+        if (objectShape != null) {
+            objectShape.put(name, jsonShape);
+        } else {
+            sampler.add(index++, jsonShape);
+        }
+    }
+
+    JsonShape finish() {
+        return objectShape != null ? objectShape : sampler.finish();
+    }
+
+    /**
+     * @throws JsonSyntaxException if a value nested in this one would be deeper than the limit
+     */
+    void checkDepth(int maxDepth, String location) {
+        if (depth >= maxDepth) {
+            throw tooDeep(maxDepth, location);
+        }
+    }
+
+    static JsonSyntaxException tooDeep(int maxDepth, String location) {
+        return new JsonSyntaxException("Nesting limit " + maxDepth + " reached" + location);
+    }
+}
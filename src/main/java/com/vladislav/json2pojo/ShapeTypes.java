@@ -0,0 +1,94 @@
+package com.vladislav.json2pojo;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * which of the inferred details of shapes make it into generated types: widths of numbers narrower than int,
+ * values of strings that become enums and formats of values. Shapes that differ only in other details
+ * get the same types, so they are generated and deduplicated the same way
+ */
+final class ShapeTypes {
+    /**
+     * every detail counts
+     */
+    static final ShapeTypes EXACT = new ShapeTypes(true, ValueDomain.MAX_VALUES, List.of(ValueFormat.values()));
+
+    private final boolean narrowNumbers;  // numbers narrower than int get byte and short types
+    private final int maxEnumValues;  // strings with at most this many distinct values become enums, 0 if never
+    private final List<ValueFormat> stringFormats;  // detected formats of strings, the first one that fits wins
+    private final boolean bigIntegers;
+    private final boolean bigDecimals;
+
+    ShapeTypes(boolean narrowNumbers, int maxEnumValues, List<ValueFormat> valueFormats) {
+        this.narrowNumbers = narrowNumbers;
+        this.maxEnumValues = maxEnumValues;
+        stringFormats = valueFormats.stream().filter(ValueFormat::isString).collect(Collectors.toUnmodifiableList());
+        bigIntegers = valueFormats.contains(ValueFormat.BIG_INTEGER);
+        bigDecimals = valueFormats.contains(ValueFormat.BIG_DECIMAL);
+    }
+
+    /**
+     * @return type the number is generated as, null if there is no number
+     */
+    NumberType numberType(NumberType numberType) {
+        if (numberType == null) {
+            return null;
+        } else if (numberType == NumberType.BIG_INTEGER && !bigIntegers
+                || numberType == NumberType.BIG_DECIMAL && !bigDecimals) {
+            return NumberType.DOUBLE;
+        }
+        return narrowNumbers ? numberType : numberType.atLeastInt();
+    }
+
+    /**
+     * same as {@link #numberType(NumberType)} for a bit mask of types indexed by ordinal
+     */
+    int numberTypes(int numberTypes) {
+        int result = narrowNumbers ? numberTypes : NumberType.atLeastInt(numberTypes);
+        if (!bigIntegers) {
+            result = fold(result, NumberType.BIG_INTEGER);
+        }
+        if (!bigDecimals) {
+            result = fold(result, NumberType.BIG_DECIMAL);
+        }
+        return result;
+    }
+
+    /**
+     * @return values of the enum the strings become, empty if they don't become one
+     */
+    List<String> enumValues(PrimitiveShape primitiveShape) {
+        final ValueDomain values = primitiveShape.values;
+        return values != null && values.isEnum(maxEnumValues) ? values.values() : List.of();
+    }
+
+    /**
+     * @return format the strings are generated as, null if they stay strings
+     */
+    ValueFormat stringFormat(PrimitiveShape primitiveShape) {
+        return primitiveShape.values == null ? null : stringFormat(primitiveShape.formats);
+    }
+
+    /**
+     * @return format the string elements are generated as, null if they stay strings or there are no strings
+     */
+    ValueFormat stringFormat(ArrayShape arrayShape) {
+        return arrayShape.getPrimitiveType() != JsonPrimitiveType.STRING ? null
+                : stringFormat(arrayShape.getFormats());
+    }
+
+    private ValueFormat stringFormat(int formats) {
+        for (ValueFormat format : stringFormats) {
+            if ((formats & ValueFormats.bit(format)) != 0) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    private static int fold(int numberTypes, NumberType numberType) {
+        final int bit = 1 << numberType.ordinal();
+        return (numberTypes & bit) == 0 ? numberTypes : numberTypes & ~bit | 1 << NumberType.DOUBLE.ordinal();
+    }
+}
@@ -0,0 +1,323 @@
+package com.vladislav.json2pojo;
+
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.squareup.javapoet.*;
+import com.vladislav.json2pojo.pojo.TypeSpecBuilderWrapper;
+import lombok.RequiredArgsConstructor;
+
+import javax.lang.model.element.Modifier;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static com.vladislav.json2pojo.Utils.*;
+
+/**
+ * adds {@code static T read(JsonReader reader)} to every generated class. The method switches on field names
+ * and assigns fields directly, so binding needs no reflection. Unknown names are skipped,
+ * values of {@link Object} fields are read as {@link com.google.gson.JsonElement}.
+ * Primitive arrays grow while they are read and are trimmed at the end.
+ * Final fields set by a constructor, see {@link FinalFields}, are read to local variables first.
+ * Generated enums are looked up by their values, values of detected formats are parsed from strings,
+ * see {@link ValueFormat}.
+ * Fields of classes outside of {@code java.*} are expected to be generated classes with their own read method.
+ * Raw json of lazily decoded fields, see {@link LazyFields}, is captured with {@link RawJson}, their getters decode it
+ * on first access and setters drop it. If decoding is lazy, every class also gets {@code static T read(String json)}:
+ * it reads with {@link RawJson#reader(String)}, so raw json is a substring of the json instead of a copy of its tokens,
+ * and getters decode it the same way
+ */
+@RequiredArgsConstructor
+class StreamingReaders implements Consumer<TypeSpecBuilderWrapper> {
+    private static final ClassName LIST = ClassName.get(List.class);
+    private static final int ARRAY_CAPACITY = 16;
+
+    private final Set<TypeName> collectionTypes;  // primitive collections that are skipped
+    private final boolean lazy;  // fields may be decoded lazily
+
+    @Override
+    public void accept(TypeSpecBuilderWrapper wrapper) {
+        final ClassName self = ClassName.get("", wrapper.className);
+        final MethodSpec.Builder method = MethodSpec.methodBuilder("read")
+                .addModifiers(Modifier.STATIC)
+                .returns(self)
+                .addParameter(JsonReader.class, "reader")
+                .addException(IOException.class)
+                .beginControlFlow("if (reader.peek() == $T.NULL)", JsonToken.class)
+                .addStatement("reader.nextNull()")
+                .addStatement("return null")
+                .endControlFlow();
+        final int[] variables = new int[1];  // counter for unique names of local variables
+        final Map<String, String> targets = new LinkedHashMap<>();  // field name -> where its value is read to
+        final Map<String, String> rawTargets = new LinkedHashMap<>();  // field name -> where its raw json is read to
+        final List<FieldSpec> constructorFields = FinalFields.constructorFields(wrapper.typeSpec);
+        if (constructorFields.isEmpty()) {
+            method.addStatement("final $T result = new $T()", self, self);
+            for (FieldSpec fieldSpec : wrapper.typeSpec.fieldSpecs) {
+                final String rawField = wrapper.lazyFields.get(fieldSpec.name);
+                if (rawField != null) {
+                    rawTargets.put(fieldSpec.name, "result." + rawField);
+                } else if (!fieldSpec.hasModifier(Modifier.STATIC)) {
+                    targets.put(fieldSpec.name, "result." + fieldSpec.name);
+                }
+            }
+        } else {  // final fields are read to local variables and passed to the constructor
+            for (FieldSpec fieldSpec : constructorFields) {
+                final String value = "value" + variables[0]++;
+                method.addStatement("$T $L = $L", fieldSpec.type, value, defaultValue(fieldSpec.type));
+                targets.put(fieldSpec.name, value);
+            }
+            for (FieldSpec fieldSpec : wrapper.typeSpec.fieldSpecs) {  // lazy fields are set after the constructor
+                if (wrapper.lazyFields.containsKey(fieldSpec.name)) {
+                    final String value = "value" + variables[0]++;
+                    method.addStatement("$T $L = null", String.class, value);
+                    rawTargets.put(fieldSpec.name, value);
+                }
+            }
+        }
+        method.addStatement("reader.beginObject()")
+                .beginControlFlow("while (reader.hasNext())")
+                .beginControlFlow("switch (reader.nextName())");
+        for (FieldSpec fieldSpec : wrapper.typeSpec.fieldSpecs) {
+            final String jsonName = wrapper.jsonNames.get(fieldSpec.name);
+            final String target = targets.get(fieldSpec.name);
+            final String rawTarget = rawTargets.get(fieldSpec.name);
+            if (jsonName == null || target == null && rawTarget == null) {
+                continue;
+            }
+            method.addCode("case $S:\n$>", jsonName);
+            if (rawTarget != null) {
+                method.addStatement("$L = $T.capture(reader)", rawTarget, RawJson.class);
+            } else if (wrapper.enumFields.contains(fieldSpec.name)) {
+                readNullable(method, target, CodeBlock.of("$T.of(reader.nextString())", fieldSpec.type));
+            } else if (wrapper.base64Fields.contains(fieldSpec.name)) {
+                readNullable(method, target, parse(ValueFormat.BASE64));
+            } else {
+                readValue(method, fieldSpec.type, target, variables);
+            }
+            method.addStatement("break").addCode("$<");
+        }
+        method.addCode("default:\n$>")
+                .addStatement("reader.skipValue()")
+                .addCode("$<")
+                .endControlFlow()
+                .endControlFlow()
+                .addStatement("reader.endObject()");
+        if (constructorFields.isEmpty()) {
+            method.addStatement("return result");
+        } else {
+            final List<CodeBlock> arguments = new ArrayList<>();
+            for (String value : targets.values()) {
+                arguments.add(CodeBlock.of("$L", value));
+            }
+            if (rawTargets.isEmpty()) {
+                method.addStatement("return new $T($L)", self, CodeBlock.join(arguments, ",$W"));
+            } else {
+                method.addStatement("final $T result = new $T($L)", self, self, CodeBlock.join(arguments, ",$W"));
+                rawTargets.forEach((field, value) ->
+                        method.addStatement("result.$N = $L", wrapper.lazyFields.get(field), value));
+                method.addStatement("return result");
+            }
+        }
+        wrapper.typeSpec.addMethod(method.build());
+        if (lazy) {
+            wrapper.typeSpec.addMethod(MethodSpec.methodBuilder("read")
+                    .addModifiers(Modifier.STATIC)
+                    .returns(self)
+                    .addParameter(String.class, "json")
+                    .addException(IOException.class)
+                    .addStatement("return read($T.reader(json))", RawJson.class)
+                    .build());
+        }
+        for (FieldSpec fieldSpec : wrapper.typeSpec.fieldSpecs) {
+            final String rawField = wrapper.lazyFields.get(fieldSpec.name);
+            if (rawField != null) {
+                addLazyAccessors(wrapper.typeSpec, fieldSpec, rawField);
+            }
+        }
+    }
+
+    /**
+     * getter decodes raw json of the field once and drops it, setter drops it too, so the set value is kept.
+     * Getters and setters of the field added by consumers are replaced, they would miss raw json
+     */
+    private void addLazyAccessors(TypeSpec.Builder typeSpec, FieldSpec fieldSpec, String rawField) {
+        final String getter = "get" + capitalize(fieldSpec.name);
+        final String setter = "set" + capitalize(fieldSpec.name);
+        typeSpec.methodSpecs.removeIf(methodSpec -> methodSpec.name.equals(getter) && methodSpec.parameters.isEmpty()
+                || methodSpec.name.equals(setter) && methodSpec.parameters.size() == 1);
+        final MethodSpec.Builder get = MethodSpec.methodBuilder(getter)
+                .returns(fieldSpec.type)
+                .beginControlFlow("if (this.$N != null)", rawField)
+                .beginControlFlow("try")
+                .addStatement("final $T reader = $T.reader(this.$N)", JsonReader.class, RawJson.class, rawField);
+        readValue(get, fieldSpec.type, "this." + fieldSpec.name, new int[1]);
+        get.nextControlFlow("catch ($T e)", IOException.class)  // raw json was read once, so it is valid
+                .addStatement("throw new $T(e)", UncheckedIOException.class)
+                .endControlFlow()
+                .addStatement("this.$N = null", rawField)
+                .endControlFlow()
+                .addStatement("return this.$N", fieldSpec);
+        typeSpec.addMethod(get.build());
+        typeSpec.addMethod(MethodSpec.methodBuilder(setter)
+                .addParameter(fieldSpec.type, fieldSpec.name)
+                .addStatement("this.$N = $N", fieldSpec, fieldSpec.name)
+                .addStatement("this.$N = null", rawField)
+                .build());
+    }
+
+    /**
+     * unknown values of enums are read as null, the same as gson does
+     */
+    private static void readNullable(MethodSpec.Builder method, String target, CodeBlock value) {
+        method.beginControlFlow("if (reader.peek() == $T.NULL)", JsonToken.class)
+                .addStatement("reader.nextNull()")
+                .addStatement("$L = null", target)
+                .nextControlFlow("else")
+                .addStatement("$L = $L", target, value)
+                .endControlFlow();
+    }
+
+    private void readValue(MethodSpec.Builder method, TypeName type, String target, int[] variables) {
+        final ValueFormat format = ValueFormat.ofType(type);
+        if (format != null) {
+            readNullable(method, target, parse(format));
+            return;
+        } else if (type instanceof ClassName && !type.isBoxedPrimitive() && !type.equals(TypeName.OBJECT)
+                && !type.equals(ClassName.get(String.class))) {
+            if (((ClassName) type).packageName().startsWith("java.") || collectionTypes.contains(type)) {
+                method.addStatement("reader.skipValue()")
+                        .addStatement("$L = null", target);
+            } else {  // generated class reads itself and handles null
+                method.addStatement("$L = $T.read(reader)", target, type);
+            }
+            return;
+        } else if (type.equals(TypeName.OBJECT)) {
+            method.addStatement("$L = $T.parseReader(reader)", target, JsonParser.class);
+            return;
+        }
+        method.beginControlFlow("if (reader.peek() == $T.NULL)", JsonToken.class)
+                .addStatement("reader.nextNull()");
+        if (!type.isPrimitive()) {
+            method.addStatement("$L = null", target);
+        }
+        method.nextControlFlow("else");
+        if (type instanceof ParameterizedTypeName && ((ParameterizedTypeName) type).rawType.equals(LIST)) {
+            final TypeName elementType = ((ParameterizedTypeName) type).typeArguments.get(0);
+            final String list = "list" + variables[0]++;
+            final String element = "element" + variables[0]++;
+            method.addStatement("final $T $L = new $T<>()", type, list, ArrayList.class)
+                    .addStatement("reader.beginArray()")
+                    .beginControlFlow("while (reader.hasNext())")
+                    .addStatement("final $T $L", elementType, element);
+            if (elementType.equals(ValueFormat.BASE64.type)) {  // lists of byte arrays are made only of base64
+                readNullable(method, element, parse(ValueFormat.BASE64));
+            } else {
+                readValue(method, elementType, element, variables);
+            }
+            method.addStatement("$L.add($L)", list, element)
+                    .endControlFlow()
+                    .addStatement("reader.endArray()")
+                    .addStatement("$L = $L", target, list);
+        } else if (type instanceof ArrayTypeName && isReadable(((ArrayTypeName) type).componentType)) {
+            final TypeName componentType = ((ArrayTypeName) type).componentType;
+            final String array = "array" + variables[0]++;
+            final String size = "size" + variables[0]++;
+            method.addStatement("$T $L = $L", type, array, newArray(componentType, ARRAY_CAPACITY))
+                    .addStatement("int $L = 0", size)
+                    .addStatement("reader.beginArray()")
+                    .beginControlFlow("while (reader.hasNext())")
+                    .beginControlFlow("if ($L == $L.length)", size, array)
+                    .addStatement("$L = $T.copyOf($L, $L * 2)", array, Arrays.class, array, size)
+                    .endControlFlow();
+            if (componentType.isPrimitive()) {  // null element fails the same way as in gson
+                method.addStatement("$L[$L++] = $L", array, size, nextValue(componentType));
+            } else {
+                final String element = "element" + variables[0]++;
+                method.addStatement("final $T $L", componentType, element);
+                readValue(method, componentType, element, variables);
+                method.addStatement("$L[$L++] = $L", array, size, element);
+            }
+            method.endControlFlow()
+                    .addStatement("reader.endArray()")
+                    .addStatement("$L = $L == $L.length ? $L : $T.copyOf($L, $L)", target, size, array, array,
+                            Arrays.class, array, size);
+        } else {
+            final CodeBlock next = nextValue(type.isBoxedPrimitive() ? type.unbox() : type);
+            if (next != null) {
+                method.addStatement("$L = $L", target, next);
+            } else {  // changed by a consumer to a type that can't be read
+                method.addStatement("reader.skipValue()")
+                        .addStatement("$L = null", target);
+            }
+        }
+        method.endControlFlow();
+    }
+
+    static boolean isReadable(TypeName componentType) {
+        if (componentType instanceof ArrayTypeName) {
+            return isReadable(((ArrayTypeName) componentType).componentType);
+        }
+        return componentType.isPrimitive() && nextValue(componentType) != null;
+    }
+
+    /**
+     * @return {@code new int[length]}, or {@code new int[length][]} if the component is an array itself
+     */
+    private static CodeBlock newArray(TypeName componentType, int length) {
+        final StringBuilder dimensions = new StringBuilder();
+        while (componentType instanceof ArrayTypeName) {
+            componentType = ((ArrayTypeName) componentType).componentType;
+            dimensions.append("[]");
+        }
+        return CodeBlock.of("new $T[$L]$L", componentType, length, dimensions);
+    }
+
+    /**
+     * @return expression that reads a value of the type, null if the type can't be read
+     */
+    private static CodeBlock nextValue(TypeName type) {
+        if (type.equals(TypeName.INT)) {
+            return CodeBlock.of("reader.nextInt()");
+        } else if (type.equals(TypeName.SHORT)) {
+            return CodeBlock.of("(short) reader.nextInt()");
+        } else if (type.equals(TypeName.BYTE)) {
+            return CodeBlock.of("(byte) reader.nextInt()");
+        } else if (type.equals(TypeName.LONG)) {
+            return CodeBlock.of("reader.nextLong()");
+        } else if (type.equals(TypeName.DOUBLE)) {
+            return CodeBlock.of("reader.nextDouble()");
+        } else if (type.equals(TypeName.BOOLEAN)) {
+            return CodeBlock.of("reader.nextBoolean()");
+        } else if (type.equals(ClassName.get(String.class))) {
+            return CodeBlock.of("reader.nextString()");
+        }
+        return null;
+    }
+
+    /**
+     * @return expression that parses a value of the format, big numbers are parsed from their literals
+     */
+    private static CodeBlock parse(ValueFormat format) {
+        switch (format) {
+            case UUID:
+                return CodeBlock.of("$T.fromString(reader.nextString())", format.type);
+            case BASE64:
+                return CodeBlock.of("$T.getDecoder().decode(reader.nextString())", Base64.class);
+            case BIG_INTEGER:
+            case BIG_DECIMAL:
+                return CodeBlock.of("new $T(reader.nextString())", format.type);
+            default:
+                return CodeBlock.of("$T.parse(reader.nextString())", format.type);
+        }
+    }
+
+    private static String defaultValue(TypeName type) {
+        if (type.equals(TypeName.BOOLEAN)) {
+            return "false";
+        }
+        return type.isPrimitive() ? "0" : "null";
+    }
+}
@@ -0,0 +1,217 @@
+package com.vladislav.json2pojo;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonWriter;
+import com.squareup.javapoet.*;
+import com.vladislav.json2pojo.pojo.TypeSpecBuilderWrapper;
+import lombok.RequiredArgsConstructor;
+
+import javax.lang.model.element.Modifier;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * adds {@code writeTo(JsonWriter writer)} and {@code writeTo(JsonBytes out)} to every generated class.
+ * Both are unrolled per field with the json names written as constants, so writing needs no reflection.
+ * {@code JsonBytes} is generated next to the classes, see {@link JsonBytesClass}.
+ * Values of detected formats are written the way they are read, see {@link ValueFormat}.
+ * Values of {@link Object} fields are written as json if they are {@link JsonElement},
+ * other values and primitive collections fall back to reflective {@link Gson}.
+ * Lazily decoded fields, see {@link LazyFields}, are written from their raw json as long as it isn't decoded
+ */
+@RequiredArgsConstructor
+class StreamingWriters implements Consumer<TypeSpecBuilderWrapper> {
+    private static final ClassName LIST = ClassName.get(List.class);
+    private static final ClassName STRING = ClassName.get(String.class);
+
+    private final Set<TypeName> collectionTypes;  // primitive collections that are written with gson
+
+    @Override
+    public void accept(TypeSpecBuilderWrapper wrapper) {
+        final MethodSpec.Builder writer = MethodSpec.methodBuilder("writeTo")
+                .addParameter(JsonWriter.class, "writer")
+                .addException(IOException.class)
+                .addStatement("writer.beginObject()");
+        final MethodSpec.Builder bytes = MethodSpec.methodBuilder("writeTo")
+                .addParameter(JsonBytesClass.SELF, "out");
+        final int[] variables = new int[1];  // counter for unique names of local variables
+        String separator = "{";
+        for (FieldSpec fieldSpec : wrapper.typeSpec.fieldSpecs) {
+            final String jsonName = wrapper.jsonNames.get(fieldSpec.name);
+            if (jsonName == null || fieldSpec.hasModifier(Modifier.STATIC)) {
+                continue;
+            }
+            writer.addStatement("writer.name($S)", jsonName);
+            bytes.addStatement("out.raw($S)", separator + quote(jsonName) + ":");
+            final String rawField = wrapper.lazyFields.get(fieldSpec.name);
+            if (rawField != null) {
+                writer.beginControlFlow("if (this.$N != null)", rawField)
+                        .addStatement("writer.jsonValue(this.$N)", rawField)
+                        .nextControlFlow("else");
+                bytes.beginControlFlow("if (this.$N != null)", rawField)
+                        .addStatement("out.raw(this.$N)", rawField)
+                        .nextControlFlow("else");
+            }
+            if (wrapper.enumFields.contains(fieldSpec.name)) {  // enum is written as its value
+                writer.addStatement("writer.value(this.$N == null ? null : this.$N.value)", fieldSpec, fieldSpec);
+                bytes.addStatement("out.string(this.$N == null ? null : this.$N.value)", fieldSpec, fieldSpec);
+            } else if (wrapper.base64Fields.contains(fieldSpec.name)) {
+                writer.addStatement("writer.value($L)", formatted(ValueFormat.BASE64, "this." + fieldSpec.name));
+                bytes.addStatement("out.string($L)", formatted(ValueFormat.BASE64, "this." + fieldSpec.name));
+            } else {
+                writeValue(writer, fieldSpec.type, "this." + fieldSpec.name, variables);
+                writeBytes(bytes, fieldSpec.type, "this." + fieldSpec.name, variables);
+            }
+            if (rawField != null) {
+                writer.endControlFlow();
+                bytes.endControlFlow();
+            }
+            separator = ",";
+        }
+        writer.addStatement("writer.endObject()");
+        bytes.addStatement("out.raw($S)", separator.equals("{") ? "{}" : "}");
+        wrapper.typeSpec.addMethod(writer.build());
+        wrapper.typeSpec.addMethod(bytes.build());
+    }
+
+    private void writeValue(MethodSpec.Builder method, TypeName type, String value, int[] variables) {
+        if (type.isPrimitive() || type.isBoxedPrimitive() || type.equals(STRING)) {
+            method.addStatement("writer.value($L)", value);  // boxed null is written as null
+        } else if (ValueFormat.ofType(type) != null) {
+            method.addStatement("writer.value($L)", formatted(ValueFormat.ofType(type), value));
+        } else if (type.equals(TypeName.OBJECT) || collectionTypes.contains(type)) {
+            method.addStatement("writer.jsonValue($L instanceof $T ? $L.toString() : new $T().toJson($L))",
+                    value, JsonElement.class, value, Gson.class, value);
+        } else if (isIterable(type)) {
+            final TypeName elementType = elementType(type);
+            final String element = "element" + variables[0]++;
+            method.beginControlFlow("if ($L == null)", value)
+                    .addStatement("writer.nullValue()")
+                    .nextControlFlow("else")
+                    .addStatement("writer.beginArray()")
+                    .beginControlFlow("for ($T $L : $L)", elementType, element, value);
+            if (isBase64List(type)) {
+                method.addStatement("writer.value($L)", formatted(ValueFormat.BASE64, element));
+            } else {
+                writeValue(method, elementType, element, variables);
+            }
+            method.endControlFlow()
+                    .addStatement("writer.endArray()")
+                    .endControlFlow();
+        } else if (isGenerated(type)) {
+            method.beginControlFlow("if ($L == null)", value)
+                    .addStatement("writer.nullValue()")
+                    .nextControlFlow("else")
+                    .addStatement("$L.writeTo(writer)", value)
+                    .endControlFlow();
+        } else {  // changed by a consumer to a type that can't be written
+            method.addStatement("writer.nullValue()");
+        }
+    }
+
+    private void writeBytes(MethodSpec.Builder method, TypeName type, String value, int[] variables) {
+        final TypeName unboxed = type.isBoxedPrimitive() ? type.unbox() : type;
+        if (unboxed.equals(TypeName.BOOLEAN)) {
+            method.addStatement("out.bool($L)", value);
+        } else if (unboxed.isPrimitive()) {
+            method.addStatement("out.number($L)", value);
+        } else if (type.equals(STRING)) {
+            method.addStatement("out.string($L)", value);
+        } else if (ValueFormat.ofType(type) != null) {
+            final ValueFormat format = ValueFormat.ofType(type);
+            method.addStatement(format.isString() ? "out.string($L)" : "out.number($L)", formatted(format, value));
+        } else if (type.equals(TypeName.OBJECT) || collectionTypes.contains(type)) {
+            method.addStatement("out.raw($L instanceof $T ? $L.toString() : new $T().toJson($L))",
+                    value, JsonElement.class, value, Gson.class, value);
+        } else if (isIterable(type)) {
+            final TypeName elementType = elementType(type);
+            final String index = "i" + variables[0]++;
+            final String element = "element" + variables[0]++;
+            method.beginControlFlow("if ($L == null)", value)
+                    .addStatement("out.nullValue()")
+                    .nextControlFlow("else")
+                    .addStatement("out.raw($S)", "[")
+                    .addStatement("int $L = 0", index)
+                    .beginControlFlow("for ($T $L : $L)", elementType, element, value)
+                    .beginControlFlow("if ($L++ > 0)", index)
+                    .addStatement("out.raw($S)", ",")
+                    .endControlFlow();
+            if (isBase64List(type)) {
+                method.addStatement("out.string($L)", formatted(ValueFormat.BASE64, element));
+            } else {
+                writeBytes(method, elementType, element, variables);
+            }
+            method.endControlFlow()
+                    .addStatement("out.raw($S)", "]")
+                    .endControlFlow();
+        } else if (isGenerated(type)) {
+            method.beginControlFlow("if ($L == null)", value)
+                    .addStatement("out.nullValue()")
+                    .nextControlFlow("else")
+                    .addStatement("$L.writeTo(out)", value)
+                    .endControlFlow();
+        } else {
+            method.addStatement("out.nullValue()");
+        }
+    }
+
+    /**
+     * @return true for lists and arrays, both are written with a for-each loop
+     */
+    private static boolean isIterable(TypeName type) {
+        return type instanceof ArrayTypeName
+                || type instanceof ParameterizedTypeName && ((ParameterizedTypeName) type).rawType.equals(LIST);
+    }
+
+    /**
+     * @return true for lists of byte arrays, only base64 strings give them
+     */
+    private static boolean isBase64List(TypeName type) {
+        return type instanceof ParameterizedTypeName && elementType(type).equals(ValueFormat.BASE64.type);
+    }
+
+    /**
+     * @return string the value of the format is written as, big numbers are written as they are
+     */
+    private static CodeBlock formatted(ValueFormat format, String value) {
+        switch (format) {
+            case BASE64:
+                return CodeBlock.of("$L == null ? null : $T.getEncoder().encodeToString($L)", value, Base64.class,
+                        value);
+            case BIG_INTEGER:
+            case BIG_DECIMAL:
+                return CodeBlock.of("$L", value);
+            default:
+                return CodeBlock.of("$L == null ? null : $L.toString()", value, value);
+        }
+    }
+
+    private static TypeName elementType(TypeName type) {
+        return type instanceof ArrayTypeName ? ((ArrayTypeName) type).componentType
+                : ((ParameterizedTypeName) type).typeArguments.get(0);
+    }
+
+    private static boolean isGenerated(TypeName type) {
+        return type instanceof ClassName && !((ClassName) type).packageName().startsWith("java.");
+    }
+
+    /**
+     * @return json string literal of the name, escaped the same way as {@link JsonWriter} and generated
+     * {@code JsonBytes} escape strings
+     */
+    private static String quote(String name) {
+        final StringWriter literal = new StringWriter(name.length() + 2);
+        try {
+            new JsonWriter(literal).value(name);
+        } catch (IOException e) {  // string writer doesn't throw
+            throw new UncheckedIOException(e);
+        }
+        return literal.toString();
+    }
+}
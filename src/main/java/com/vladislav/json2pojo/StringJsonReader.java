@@ -0,0 +1,593 @@
+package com.vladislav.json2pojo;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * strict {@link JsonReader} of a string that knows where its values start and end,
+ * so {@link RawJson#capture(JsonReader)} cuts raw json of a value out of the string instead of copying it.
+ * Every public method of {@link JsonReader} is overridden, the reader of the superclass is never read.
+ * Values are skipped by scanning their brackets and strings, so skipped values are checked only for their structure
+ */
+final class StringJsonReader extends JsonReader {
+    private static final int EMPTY_ARRAY = 1;
+    private static final int NONEMPTY_ARRAY = 2;
+    private static final int EMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;  // name is read, value is not
+    private static final int NONEMPTY_OBJECT = 5;
+    private static final int EMPTY_DOCUMENT = 6;
+    private static final int NONEMPTY_DOCUMENT = 7;
+    private static final int CLOSED = 8;
+
+    private final String json;
+    private int pos;  // of the peeked token if there is one, otherwise of the next char to read
+    private JsonToken peeked;  // null if the next token is not peeked yet
+
+    private int[] stack = new int[32];
+    private String[] pathNames = new String[32];
+    private int[] pathIndices = new int[32];
+    private int stackSize = 1;
+
+    StringJsonReader(String json) {
+        super(Reader.nullReader());
+        this.json = json;
+        stack[0] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * reads the next value and returns its json as it is written in the string, the value may have been peeked
+     *
+     * @return null if the value is null
+     */
+    String nextRaw() throws IOException {
+        final JsonToken token = peek();
+        if (token == JsonToken.NULL) {
+            nextNull();
+            return null;
+        } else if (!isValue(token)) {
+            throw unexpected("a value", token);
+        }
+        final int start = pos;
+        skipValue();
+        return json.substring(start, pos);
+    }
+
+    @Override
+    public JsonToken peek() throws IOException {
+        if (peeked != null) {
+            return peeked;
+        }
+        final int scope = stack[stackSize - 1];
+        switch (scope) {
+            case EMPTY_ARRAY:
+                stack[stackSize - 1] = NONEMPTY_ARRAY;
+                if (nextNonWhitespace() == ']') {
+                    return peeked = JsonToken.END_ARRAY;
+                }
+                break;
+            case NONEMPTY_ARRAY:
+                final char separator = nextNonWhitespace();
+                if (separator == ']') {
+                    return peeked = JsonToken.END_ARRAY;
+                } else if (separator != ',') {
+                    throw syntaxError("Unterminated array");
+                }
+                pos++;
+                break;
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                stack[stackSize - 1] = DANGLING_NAME;
+                char c = nextNonWhitespace();
+                if (c == '}') {
+                    return peeked = JsonToken.END_OBJECT;
+                } else if (scope == NONEMPTY_OBJECT) {
+                    if (c != ',') {
+                        throw syntaxError("Unterminated object");
+                    }
+                    pos++;
+                    c = nextNonWhitespace();
+                }
+                if (c != '"') {
+                    throw syntaxError("Expected name");
+                }
+                return peeked = JsonToken.NAME;
+            case DANGLING_NAME:
+                stack[stackSize - 1] = NONEMPTY_OBJECT;
+                if (nextNonWhitespace() != ':') {
+                    throw syntaxError("Expected ':'");
+                }
+                pos++;
+                break;
+            case EMPTY_DOCUMENT:
+                stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+                break;
+            case NONEMPTY_DOCUMENT:
+                if (skipWhitespace() == json.length()) {
+                    return peeked = JsonToken.END_DOCUMENT;
+                }
+                throw syntaxError("Expected end of document");
+            default:
+                throw new IllegalStateException("JsonReader is closed");
+        }
+        return peeked = peekValue();
+    }
+
+    @Override
+    public void beginArray() throws IOException {
+        expect(JsonToken.BEGIN_ARRAY);
+        pos++;
+        push(EMPTY_ARRAY);
+        pathIndices[stackSize - 1] = 0;
+    }
+
+    @Override
+    public void endArray() throws IOException {
+        expect(JsonToken.END_ARRAY);
+        pos++;
+        stackSize--;
+        pathIndices[stackSize - 1]++;
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        expect(JsonToken.BEGIN_OBJECT);
+        pos++;
+        push(EMPTY_OBJECT);
+    }
+
+    @Override
+    public void endObject() throws IOException {
+        expect(JsonToken.END_OBJECT);
+        pos++;
+        stackSize--;
+        pathNames[stackSize] = null;
+        pathIndices[stackSize - 1]++;
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        final JsonToken token = peek();
+        return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY && token != JsonToken.END_DOCUMENT;
+    }
+
+    @Override
+    public String nextName() throws IOException {
+        expect(JsonToken.NAME);
+        final String name = string();
+        pathNames[stackSize - 1] = name;
+        return name;
+    }
+
+    /**
+     * @return string, or the literal of a number
+     */
+    @Override
+    public String nextString() throws IOException {
+        final JsonToken token = peek();
+        final String value;
+        if (token == JsonToken.STRING) {
+            value = string();
+        } else if (token == JsonToken.NUMBER) {
+            value = literal();
+        } else {
+            throw unexpected("a string", token);
+        }
+        pathIndices[stackSize - 1]++;
+        return value;
+    }
+
+    @Override
+    public boolean nextBoolean() throws IOException {
+        expect(JsonToken.BOOLEAN);
+        final boolean value = json.charAt(pos) == 't';
+        consumed(value ? 4 : 5);
+        return value;
+    }
+
+    @Override
+    public void nextNull() throws IOException {
+        expect(JsonToken.NULL);
+        consumed(4);
+    }
+
+    /**
+     * numbers and strings of numbers, the same as {@link JsonReader#nextDouble()}
+     */
+    @Override
+    public double nextDouble() throws IOException {
+        final String number = number("a double");
+        final double value = Double.parseDouble(number);
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new MalformedJsonException("JSON forbids NaN and infinities: " + value + location());
+        }
+        return value;
+    }
+
+    @Override
+    public long nextLong() throws IOException {
+        final String number = number("a long");
+        try {
+            return Long.parseLong(number);
+        } catch (NumberFormatException e) {  // a fraction or an exponent that still makes a long
+            final double value = Double.parseDouble(number);
+            final long result = (long) value;
+            if (result != value) {
+                throw new NumberFormatException("Expected a long but was " + number + location());
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public int nextInt() throws IOException {
+        final String number = number("an int");
+        try {
+            return Integer.parseInt(number);
+        } catch (NumberFormatException e) {
+            final double value = Double.parseDouble(number);
+            final int result = (int) value;
+            if (result != value) {
+                throw new NumberFormatException("Expected an int but was " + number + location());
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public void skipValue() throws IOException {
+        final JsonToken token = peek();
+        if (token == JsonToken.NAME) {  // the same as JsonReader, a name is skipped with its value
+            nextName();
+            skipValue();
+            return;
+        } else if (!isValue(token)) {
+            throw unexpected("a value", token);
+        }
+        pos = valueEnd(pos);
+        peeked = null;
+        pathIndices[stackSize - 1]++;
+        if (stack[stackSize - 1] == DANGLING_NAME) {
+            stack[stackSize - 1] = NONEMPTY_OBJECT;
+        }
+    }
+
+    @Override
+    public void close() {
+        peeked = null;
+        stack[0] = CLOSED;
+        stackSize = 1;
+    }
+
+    @Override
+    public String getPath() {
+        final StringBuilder path = new StringBuilder("$");
+        for (int i = 1; i < stackSize; i++) {
+            switch (stack[i]) {
+                case EMPTY_ARRAY:
+                case NONEMPTY_ARRAY:
+                    path.append('[').append(pathIndices[i]).append(']');
+                    break;
+                case EMPTY_OBJECT:
+                case DANGLING_NAME:
+                case NONEMPTY_OBJECT:
+                    path.append('.');
+                    if (pathNames[i] != null) {
+                        path.append(pathNames[i]);
+                    }
+                    break;
+                default:
+            }
+        }
+        return path.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + location();
+    }
+
+    private JsonToken peekValue() throws IOException {
+        final char c = nextNonWhitespace();
+        switch (c) {
+            case '{':
+                return JsonToken.BEGIN_OBJECT;
+            case '[':
+                return JsonToken.BEGIN_ARRAY;
+            case '"':
+                return JsonToken.STRING;
+            case 't':
+                return keyword("true", JsonToken.BOOLEAN);
+            case 'f':
+                return keyword("false", JsonToken.BOOLEAN);
+            case 'n':
+                return keyword("null", JsonToken.NULL);
+            default:
+                if (c == '-' || c >= '0' && c <= '9') {
+                    checkNumber();
+                    return JsonToken.NUMBER;
+                }
+                throw syntaxError("Expected value");
+        }
+    }
+
+    private JsonToken keyword(String keyword, JsonToken token) throws IOException {
+        if (!json.startsWith(keyword, pos) || !isDelimiter(pos + keyword.length())) {
+            throw syntaxError("Expected value");
+        }
+        return token;
+    }
+
+    /**
+     * checks that the number at the position is written as json allows: {@code -?(0|[1-9]\d*)(\.\d+)?([eE][+-]?\d+)?}
+     */
+    private void checkNumber() throws IOException {
+        int i = pos;
+        if (json.charAt(i) == '-') {
+            i++;
+        }
+        if (i < json.length() && json.charAt(i) == '0') {
+            i++;
+        } else {
+            i = digits(i);
+        }
+        if (i < json.length() && json.charAt(i) == '.') {
+            i = digits(i + 1);
+        }
+        if (i < json.length() && (json.charAt(i) == 'e' || json.charAt(i) == 'E')) {
+            i++;
+            if (i < json.length() && (json.charAt(i) == '+' || json.charAt(i) == '-')) {
+                i++;
+            }
+            i = digits(i);
+        }
+        if (!isDelimiter(i)) {
+            throw syntaxError("Malformed number");
+        }
+    }
+
+    /**
+     * @return position after one or more digits
+     */
+    private int digits(int i) throws IOException {
+        final int start = i;
+        while (i < json.length() && json.charAt(i) >= '0' && json.charAt(i) <= '9') {
+            i++;
+        }
+        if (i == start) {
+            throw syntaxError("Malformed number");
+        }
+        return i;
+    }
+
+    /**
+     * @return position right after the value that starts at the position
+     */
+    private int valueEnd(int i) throws IOException {
+        char c = json.charAt(i);
+        if (c == '"') {
+            return stringEnd(i);
+        } else if (c != '{' && c != '[') {  // literal is checked by peek
+            while (!isDelimiter(i)) {
+                i++;
+            }
+            return i;
+        }
+        final StringBuilder closers = new StringBuilder();  // of objects and arrays the position is in
+        while (true) {
+            if (c == '{') {
+                closers.append('}');
+            } else if (c == '[') {
+                closers.append(']');
+            } else if (c == '}' || c == ']') {
+                final int last = closers.length() - 1;
+                if (closers.charAt(last) != c) {
+                    pos = i;
+                    throw syntaxError("Unexpected '" + c + "'");
+                }
+                closers.setLength(last);
+                if (last == 0) {
+                    return i + 1;
+                }
+            } else if (c == '"') {
+                i = stringEnd(i) - 1;
+            }
+            if (++i == json.length()) {
+                pos = i;
+                throw new EOFException("End of input" + location());
+            }
+            c = json.charAt(i);
+        }
+    }
+
+    /**
+     * @return position right after the closing quote of the string that starts at the position
+     */
+    private int stringEnd(int i) throws IOException {
+        for (i++; i < json.length(); i++) {
+            final char c = json.charAt(i);
+            if (c == '"') {
+                return i + 1;
+            } else if (c == '\\') {
+                i++;
+            }
+        }
+        pos = i;
+        throw syntaxError("Unterminated string");
+    }
+
+    /**
+     * reads the string at the position, only strings with escapes are copied char by char
+     */
+    private String string() throws IOException {
+        final int start = pos + 1;
+        for (int i = start; i < json.length(); i++) {
+            final char c = json.charAt(i);
+            if (c == '"') {
+                pos = i + 1;
+                peeked = null;
+                return json.substring(start, i);
+            } else if (c == '\\') {
+                return unescape(start, i);
+            }
+        }
+        pos = json.length();
+        throw syntaxError("Unterminated string");
+    }
+
+    private String unescape(int start, int i) throws IOException {
+        final StringBuilder value = new StringBuilder(i - start + 16).append(json, start, i);
+        while (i < json.length()) {
+            char c = json.charAt(i++);
+            if (c == '"') {
+                pos = i;
+                peeked = null;
+                return value.toString();
+            } else if (c == '\\') {
+                if (i == json.length()) {
+                    break;
+                }
+                c = json.charAt(i++);
+                switch (c) {
+                    case 'u':
+                        if (i + 4 > json.length()) {
+                            pos = json.length();
+                            throw syntaxError("Unterminated escape sequence");
+                        }
+                        try {
+                            c = (char) Integer.parseInt(json.substring(i, i + 4), 16);
+                        } catch (NumberFormatException e) {
+                            pos = i;
+                            throw syntaxError("Malformed escape sequence \\u" + json.substring(i, i + 4));
+                        }
+                        i += 4;
+                        break;
+                    case 't':
+                        c = '\t';
+                        break;
+                    case 'b':
+                        c = '\b';
+                        break;
+                    case 'n':
+                        c = '\n';
+                        break;
+                    case 'r':
+                        c = '\r';
+                        break;
+                    case 'f':
+                        c = '\f';
+                        break;
+                    case '"':
+                    case '\\':
+                    case '/':
+                        break;
+                    default:
+                        pos = i - 1;
+                        throw syntaxError("Invalid escape sequence");
+                }
+            }
+            value.append(c);
+        }
+        pos = json.length();
+        throw syntaxError("Unterminated string");
+    }
+
+    private String literal() throws IOException {
+        final int start = pos;
+        pos = valueEnd(start);
+        peeked = null;
+        return json.substring(start, pos);
+    }
+
+    /**
+     * @return number or string of the next value, as a string
+     */
+    private String number(String expected) throws IOException {
+        final JsonToken token = peek();
+        if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+            throw unexpected(expected, token);
+        }
+        return nextString();
+    }
+
+    /**
+     * moves past the peeked literal of the given length
+     */
+    private void consumed(int length) {
+        pos += length;
+        peeked = null;
+        pathIndices[stackSize - 1]++;
+    }
+
+    private void expect(JsonToken expected) throws IOException {
+        final JsonToken token = peek();
+        if (token != expected) {
+            throw new IllegalStateException("Expected " + expected + " but was " + token + location());
+        }
+        if (token != JsonToken.NAME) {
+            peeked = null;
+        }
+    }
+
+    private void push(int scope) {
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+            pathIndices = Arrays.copyOf(pathIndices, stackSize * 2);
+            pathNames = Arrays.copyOf(pathNames, stackSize * 2);
+        }
+        stack[stackSize++] = scope;
+    }
+
+    /**
+     * @return char at the next position that isn't whitespace, the position is moved to it
+     */
+    private char nextNonWhitespace() throws IOException {
+        pos = skipWhitespace();
+        if (pos == json.length()) {
+            throw new EOFException("End of input" + location());
+        }
+        return json.charAt(pos);
+    }
+
+    private int skipWhitespace() {
+        int i = pos;
+        while (i < json.length()) {
+            final char c = json.charAt(i);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private boolean isDelimiter(int i) {
+        if (i >= json.length()) {
+            return true;
+        }
+        final char c = json.charAt(i);
+        return c == ',' || c == '}' || c == ']' || c == ':' || c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private static boolean isValue(JsonToken token) {
+        return token != JsonToken.NAME && token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY
+                && token != JsonToken.END_DOCUMENT;
+    }
+
+    private IllegalStateException unexpected(String expected, JsonToken token) {
+        return new IllegalStateException("Expected " + expected + " but was " + token + location());
+    }
+
+    private MalformedJsonException syntaxError(String message) {
+        return new MalformedJsonException(message + location());
+    }
+
+    private String location() {
+        return " at char " + pos + " path " + getPath();
+    }
+}
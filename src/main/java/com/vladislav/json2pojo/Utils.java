@@ -1,17 +1,17 @@
 package com.vladislav.json2pojo;
 
-import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 import lombok.experimental.UtilityClass;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import javax.lang.model.SourceVersion;
 
 @UtilityClass
 class Utils {
 
+    private final IdentifierCache FIELD_NAMES = new IdentifierCache(8192, key -> toCamelCase(key, true));
+    private final IdentifierCache CLASS_NAMES = new IdentifierCache(8192, key -> toCamelCase(key, false));
+
     public JsonElementType determineTypeOfJsonElement(JsonElement jsonElement) {
         if (jsonElement.isJsonPrimitive()) {
             return JsonElementType.PRIMITIVE;
@@ -24,17 +24,46 @@ class Utils {
         }
     }
 
+    /**
+     * @return the narrowest type that holds the number, numbers with a fraction
+     * or out of the range of long are doubles, or big numbers if a double can't hold them exactly
+     */
     public NumberType determineTypeOfNumber(Number number) {
-        final int intValue = number.intValue();
-        final long longValue = number.longValue();
-        final double doubleValue = number.doubleValue();
+        return determineTypeOfNumber(number.toString());
+    }
 
-        if ((double) intValue - doubleValue != 0) {
-            return NumberType.DOUBLE;
-        } else if (longValue - (long) intValue != 0) {
+    /**
+     * same as {@link #determineTypeOfNumber(Number)} for the literal of a number
+     *
+     * @throws NumberFormatException if the literal is not a number
+     */
+    public NumberType determineTypeOfNumber(String literal) {
+        if (ValueFormats.isLong(literal)) {
+            return determineTypeOfInteger(Long.parseLong(literal));
+        }
+        final double doubleValue = Double.parseDouble(literal);
+        final long longValue = (long) doubleValue;
+
+        if ((double) longValue != doubleValue || Math.abs(doubleValue) >= 0x1p63) {
+            return ValueFormats.numberType(literal, doubleValue);
+        } else if (ValueFormats.isInexact(literal, doubleValue)) {  // fraction lost by rounding
+            return NumberType.BIG_DECIMAL;
+        }
+        return determineTypeOfInteger(longValue);
+    }
+
+    /**
+     * @return the narrowest type that holds the integer
+     */
+    public NumberType determineTypeOfInteger(long longValue) {
+        if (longValue != (int) longValue) {
             return NumberType.LONG;
-        } else {
+        } else if (longValue != (short) longValue) {
             return NumberType.INT;
+        } else if (longValue != (byte) longValue) {
+            return NumberType.SHORT;
+        } else {
+            return NumberType.BYTE;
         }
     }
 
@@ -48,75 +77,24 @@ class Utils {
         }
     }
 
-    public Pair<JsonElement, JsonArrayType> determineTypeOfJsonArray(JsonArray jsonArray) {
-        List<JsonElement> jsonElements = new ArrayList<>();
-        jsonArray.forEach(jsonElement -> {
-            if (!jsonElement.isJsonNull()) {
-                jsonElements.add(jsonElement);
-            }
-        });
-        final Set<JsonElementType> jsonArrayTypes = jsonElements.stream()
-                .map(Utils::determineTypeOfJsonElement)
-                .collect(Collectors.toSet());
-        if (jsonArrayTypes.size() == 1) {
-            final JsonElementType jsonElementType = jsonArrayTypes.iterator().next();
-            switch (jsonElementType) {
-                case PRIMITIVE:
-                    final Set<JsonPrimitiveType> jsonPrimitiveTypes = jsonElements.stream()
-                            .map(JsonElement::getAsJsonPrimitive)
-                            .map(Utils::determineTypeOfJsonPrimitive)
-                            .collect(Collectors.toSet());
-                    if (jsonPrimitiveTypes.size() == 1) {
-                        switch (jsonPrimitiveTypes.iterator().next()) {
-                            case BOOLEAN:
-                                return Pair.of(null, JsonArrayType.BOOLEAN);
-                            case NUMBER:
-                                return Pair.of(null, JsonArrayType.NUMBER);
-                            default:
-                                return Pair.of(null, JsonArrayType.STRING);
-                        }
-                    } else {
-                        return Pair.of(null, JsonArrayType.MIXED);
-                    }
-                case OBJECT:
-                    final List<JsonObject> jsonObjects = jsonElements.stream()
-                            .map(JsonElement::getAsJsonObject).collect(Collectors.toList());
-                    final Set<String> allFields = jsonObjects.stream()
-                            .map(JsonObject::entrySet)
-                            .flatMap(Collection::stream)
-                            .map(Map.Entry::getKey)
-                            .collect(Collectors.toSet());
-                    final JsonObject jsonObject = jsonObjects.get(0);
-                    if (jsonObject.entrySet().size() == allFields.size()) {
-                        return Pair.of(jsonObject, JsonArrayType.OBJECT);
-                    } else {
-                        return Pair.of(null, JsonArrayType.MIXED);
-                    }
-                default:  // is array
-                    final List<JsonArray> jsonArrays = jsonElements.stream()
-                            .map(JsonElement::getAsJsonArray)
-                            .collect(Collectors.toList());
-                    final List<Pair<JsonElement, JsonArrayType>> jsonArraysPair = jsonArrays.stream()
-                            .map(Utils::determineTypeOfJsonArray).collect(Collectors.toList());
-                    final Set<JsonArrayType> jsonArrayTypes1 = jsonArraysPair.stream().map(Pair::getValue2).collect(Collectors.toSet());
-                    if (jsonArrayTypes1.size() == 1) {
-                        final JsonArrayType next = jsonArrayTypes1.iterator().next();
-                        // todo: implement
-                    }
-                    return Pair.of(null, JsonArrayType.MIXED);
+    public String capitalize(String str) {
+        if (!str.isEmpty()) {
+            final char first = str.charAt(0);
+            if (first >= 'a' && first <= 'z') {
+                return new StringBuilder(str.length())
+                        .append((char) (first - 'a' + 'A'))
+                        .append(str, 1, str.length())
+                        .toString();
+            } else if (first < 128) {  // nothing to upper case
+                return str;
             }
-        } else {
-            return Pair.of(null, JsonArrayType.MIXED);
         }
-    }
-
-    public String capitalize(String str) {
         return str.substring(0, 1).toUpperCase() + str.substring(1);
     }
 
     public String toCamelCase(String string, boolean firstWordToLowerCase) {
         boolean isPrevLowerCase = false, isNextUpperCase = !firstWordToLowerCase;
-        StringBuilder result = new StringBuilder();
+        StringBuilder result = new StringBuilder(string.length());
         for (int i = 0; i < string.length(); i++) {
             char currentChar = string.charAt(i);
             if (!Character.isLetterOrDigit(currentChar)) {
@@ -133,12 +111,70 @@ class Utils {
         return result.toString();
     }
 
-    public boolean isValidFieldName(String fieldName) {
-        return fieldName.matches("[a-z][a-zA-Z0-9]*");
+    /**
+     * @return value converted to upper snake case, e.g. {@code IN_PROGRESS} for {@code "inProgress"}
+     * or {@code "in-progress"}, null if the value has no letters or digits
+     */
+    public String toConstantName(String value) {
+        boolean isPrevLowerCase = false, isNextSeparated = false;
+        final StringBuilder result = new StringBuilder(value.length() + 4);
+        for (int i = 0; i < value.length(); i++) {
+            final char currentChar = value.charAt(i);
+            if (!Character.isLetterOrDigit(currentChar)) {
+                isNextSeparated = result.length() > 0;
+            } else {
+                if (isNextSeparated || isPrevLowerCase && Character.isUpperCase(currentChar)) {
+                    result.append('_');
+                }
+                result.append(Character.toUpperCase(currentChar));
+                isNextSeparated = false;
+            }
+            isPrevLowerCase = Character.isLowerCase(currentChar);
+        }
+        if (result.length() > 0 && !Character.isJavaIdentifierStart(result.charAt(0))) {  // starts with a digit
+            result.insert(0, '_');
+        }
+        return SourceVersion.isName(result) ? result.toString() : null;
+    }
+
+    /**
+     * @return the key if it is a valid field name, otherwise the key converted to camel case
+     */
+    public String toFieldName(String key) {
+        return isValidFieldName(key) ? key : FIELD_NAMES.get(key);
+    }
+
+    /**
+     * @return the key if it is a valid class name, otherwise the key converted to camel case
+     */
+    public String toClassName(String key) {
+        return isValidClassName(key) ? key : CLASS_NAMES.get(key);
+    }
+
+    public boolean isValidFieldName(String fieldName) {  // [a-z][a-zA-Z0-9]*
+        return !fieldName.isEmpty() && isLowerCase(fieldName.charAt(0)) && isAlphanumericTail(fieldName);
+    }
+
+    public boolean isValidClassName(String className) {  // [A-Z][a-zA-Z0-9]*
+        return !className.isEmpty() && isUpperCase(className.charAt(0)) && isAlphanumericTail(className);
+    }
+
+    private boolean isAlphanumericTail(String string) {
+        for (int i = 1; i < string.length(); i++) {
+            final char c = string.charAt(i);
+            if (!isLowerCase(c) && !isUpperCase(c) && (c < '0' || c > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isLowerCase(char c) {
+        return c >= 'a' && c <= 'z';
     }
 
-    public boolean isValidClassName(String className) {
-        return className.matches("[A-Z][a-zA-Z0-9]*");
+    private boolean isUpperCase(char c) {
+        return c >= 'A' && c <= 'Z';
     }
 
 }
@@ -0,0 +1,80 @@
+package com.vladislav.json2pojo;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * distinct strings seen at one place of a json, in the order they were first seen.
+ * Both the values and the count of strings are capped, so the domain never grows past a few dozen strings:
+ * once there are more distinct values, or a value is too long to be a constant, only {@link #ANY} is kept.
+ * Domains are immutable and merging them is associative, so they can be merged in any grouping
+ */
+final class ValueDomain {
+    static final int MAX_VALUES = 64;
+    static final int MAX_LENGTH = 64;  // longer strings are texts, not constants
+    private static final int MAX_COUNT = 2 * MAX_VALUES;  // enough to tell if values repeat
+
+    /**
+     * too many distinct values to be an enum
+     */
+    static final ValueDomain ANY = new ValueDomain(null, MAX_COUNT);
+
+    private final String[] values;  // null if there are too many
+    private final int count;  // strings seen, stops at MAX_COUNT
+
+    private ValueDomain(String[] values, int count) {
+        this.values = values;
+        this.count = count;
+    }
+
+    static ValueDomain of(String value) {
+        return value.length() > MAX_LENGTH ? ANY : new ValueDomain(new String[]{value}, 1);
+    }
+
+    ValueDomain merge(ValueDomain other) {
+        if (values == null || other.values == null) {
+            return ANY;
+        }
+        final int mergedCount = Math.min(MAX_COUNT, count + other.count);
+        int size = values.length;
+        String[] merged = values;
+        for (String value : other.values) {
+            if (!contains(value)) {  // values of each domain are distinct
+                if (size == MAX_VALUES) {
+                    return ANY;
+                } else if (merged == values) {
+                    merged = Arrays.copyOf(values, Math.min(MAX_VALUES, values.length + other.values.length));
+                }
+                merged[size++] = value;
+            }
+        }
+        if (merged == values && mergedCount == count) {  // nothing new, the usual case once the count is capped
+            return this;
+        }
+        return new ValueDomain(size == merged.length ? merged : Arrays.copyOf(merged, size), mergedCount);
+    }
+
+    /**
+     * @return true if there are at most the given number of values and they repeat on average,
+     * so the values look like constants rather than data
+     */
+    boolean isEnum(int maxValues) {
+        return values != null && values.length <= maxValues && count >= 2 * values.length;
+    }
+
+    /**
+     * @return values in the order they were first seen, empty for {@link #ANY}
+     */
+    List<String> values() {
+        return values == null ? List.of() : List.of(values);
+    }
+
+    private boolean contains(String value) {
+        for (String known : values) {
+            if (known.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,70 @@
+package com.vladislav.json2pojo;
+
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.TypeName;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+/**
+ * formats of json values that get a more specific type than {@code String} or {@code double},
+ * see {@link GeneratePojoFromJsonBuilder#detectValueFormats(ValueFormat...)}.
+ * A string field gets the type of a format only if every sampled value has the format
+ */
+public enum ValueFormat {
+    /**
+     * ISO-8601 date-time in UTC, e.g. {@code 2011-12-03T10:15:30Z}
+     */
+    INSTANT(ClassName.get(Instant.class)),
+    /**
+     * ISO-8601 date-time with an offset or in UTC, e.g. {@code 2011-12-03T10:15:30+01:00}
+     */
+    OFFSET_DATE_TIME(ClassName.get(OffsetDateTime.class)),
+    /**
+     * ISO-8601 date, e.g. {@code 2011-12-03}
+     */
+    LOCAL_DATE(ClassName.get(LocalDate.class)),
+    UUID(ClassName.get(java.util.UUID.class)),
+    /**
+     * standard base64 with padding, at least 16 characters long and not a plain word
+     */
+    BASE64(ArrayTypeName.of(TypeName.BYTE)),
+    /**
+     * integers out of the range of long
+     */
+    BIG_INTEGER(ClassName.get(BigInteger.class)),
+    /**
+     * numbers that lose precision as a double, more than 17 significant digits or out of the range of double
+     */
+    BIG_DECIMAL(ClassName.get(BigDecimal.class));
+
+    final TypeName type;
+
+    ValueFormat(TypeName type) {
+        this.type = type;
+    }
+
+    /**
+     * @return true if values of the format are json strings
+     */
+    boolean isString() {
+        return this != BIG_INTEGER && this != BIG_DECIMAL;
+    }
+
+    /**
+     * @return format generated as the type, null if there is none. Never base64, as {@code byte[]} is
+     * generated for arrays of bytes too
+     */
+    static ValueFormat ofType(TypeName type) {
+        for (ValueFormat format : values()) {
+            if (format != BASE64 && format.type.equals(type)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
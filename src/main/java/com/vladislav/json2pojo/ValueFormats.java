@@ -0,0 +1,261 @@
+package com.vladislav.json2pojo;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * recognizes {@link ValueFormat formats} of strings. Every check scans the characters once,
+ * without regular expressions and without allocating
+ */
+@UtilityClass
+class ValueFormats {
+    private final int MIN_BASE64_LENGTH = 16;
+    private final int MAX_DOUBLE_DIGITS = 17;  // every double is printed exactly with this many digits
+    private final String LONG_MAX_DIGITS = "9223372036854775807";
+    private final String LONG_MIN_DIGITS = "9223372036854775808";  // without the sign
+    private final int MAX_LONG_DIGITS = LONG_MAX_DIGITS.length();
+
+    /**
+     * @return formats of the string as a bit mask indexed by ordinal
+     */
+    public int of(CharSequence value) {
+        final int length = value.length();
+        if (length == 10) {
+            return isDate(value) ? bit(ValueFormat.LOCAL_DATE) : 0;
+        } else if (length == 36 && isUuid(value)) {
+            return bit(ValueFormat.UUID);
+        } else if (length > 10 && value.charAt(10) == 'T') {
+            return dateTimeFormats(value);
+        }
+        return isBase64(value) ? bit(ValueFormat.BASE64) : 0;
+    }
+
+    /**
+     * @return width of a number that is not a long: big integer for an integer literal,
+     * big decimal if a double can't hold the number, double otherwise
+     */
+    public NumberType numberType(String literal, double value) {
+        if (isInteger(literal)) {
+            return NumberType.BIG_INTEGER;
+        }
+        return isInexact(literal, value) ? NumberType.BIG_DECIMAL : NumberType.DOUBLE;
+    }
+
+    /**
+     * @return true if the literal is an integer from {@link Long#MIN_VALUE} to {@link Long#MAX_VALUE},
+     * digits are compared to the bounds, so integers that a double rounds to 2^63 are told apart
+     */
+    public boolean isLong(String literal) {
+        final boolean negative = literal.startsWith("-");
+        int start = negative ? 1 : 0;
+        while (start < literal.length() - 1 && literal.charAt(start) == '0') {  // leading zeros
+            start++;
+        }
+        final int digits = literal.length() - start;
+        if (digits == 0 || !isInteger(literal)) {
+            return false;
+        } else if (digits != MAX_LONG_DIGITS) {
+            return digits < MAX_LONG_DIGITS;
+        }
+        final String bound = negative ? LONG_MIN_DIGITS : LONG_MAX_DIGITS;
+        for (int i = 0; i < digits; i++) {
+            final char c = literal.charAt(start + i);
+            if (c != bound.charAt(i)) {
+                return c < bound.charAt(i);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if a double can't hold the number of the literal, as it is out of the range of double
+     * or has more significant digits than a double ever needs. Only long literals are scanned for digits
+     */
+    public boolean isInexact(String literal, double value) {
+        if (Double.isInfinite(value)) {
+            return true;
+        } else if (value == 0) {  // underflow
+            return hasNonZeroDigit(literal);
+        }
+        return literal.length() > MAX_DOUBLE_DIGITS && !isInteger(literal)
+                && significantDigits(literal) > MAX_DOUBLE_DIGITS;
+    }
+
+    public int bit(ValueFormat format) {
+        return 1 << format.ordinal();
+    }
+
+    /**
+     * yyyy-MM-dd of a day that exists, e.g. not 2021-02-29
+     */
+    private boolean isDate(CharSequence value) {
+        if (!isDigits(value, 0, 4) || value.charAt(4) != '-'
+                || !isNumber(value, 5, 1, 12) || value.charAt(7) != '-') {
+            return false;
+        }
+        final int year = number(value, 0) * 100 + number(value, 2);
+        return isNumber(value, 8, 1, daysInMonth(year, number(value, 5)));
+    }
+
+    private int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * yyyy-MM-ddTHH:mm:ss, optional fraction of up to 9 digits, then Z or an offset like +01:00
+     */
+    private int dateTimeFormats(CharSequence value) {
+        if (!isDate(value) || value.length() < 20
+                || !isNumber(value, 11, 0, 23) || value.charAt(13) != ':'
+                || !isNumber(value, 14, 0, 59) || value.charAt(16) != ':'
+                || !isNumber(value, 17, 0, 59)) {
+            return 0;
+        }
+        int i = 19;
+        if (value.charAt(i) == '.') {
+            final int start = ++i;
+            while (i < value.length() && isDigit(value.charAt(i))) {
+                i++;
+            }
+            if (i == start || i - start > 9) {
+                return 0;
+            }
+        }
+        if (i == value.length() - 1 && value.charAt(i) == 'Z') {
+            return bit(ValueFormat.INSTANT) | bit(ValueFormat.OFFSET_DATE_TIME);
+        } else if (i == value.length() - 6 && (value.charAt(i) == '+' || value.charAt(i) == '-')
+                && isNumber(value, i + 1, 0, 18) && value.charAt(i + 3) == ':'
+                && isNumber(value, i + 4, 0, number(value, i + 1) == 18 ? 0 : 59)) {  // at most +18:00
+            return bit(ValueFormat.OFFSET_DATE_TIME);
+        }
+        return 0;
+    }
+
+    private boolean isUuid(CharSequence value) {  // 8-4-4-4-12 hex digits
+        for (int i = 0; i < 36; i++) {
+            final char c = value.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if (!isDigit(c) && (c < 'a' || c > 'f') && (c < 'A' || c > 'F')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * besides the alphabet and padding there must be a digit, a sign or padding, and letters of both cases,
+     * so long words and identifiers are not taken for base64
+     */
+    private boolean isBase64(CharSequence value) {
+        final int length = value.length();
+        if (length < MIN_BASE64_LENGTH || length % 4 != 0) {
+            return false;
+        }
+        boolean hasUpperCase = false, hasLowerCase = false, hasOther = false;
+        int padding = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c == '=') {
+                padding++;
+                hasOther = true;
+            } else if (padding > 0) {  // padding only at the end
+                return false;
+            } else if (c >= 'A' && c <= 'Z') {
+                hasUpperCase = true;
+            } else if (c >= 'a' && c <= 'z') {
+                hasLowerCase = true;
+            } else if (isDigit(c) || c == '+' || c == '/') {
+                hasOther = true;
+            } else {
+                return false;
+            }
+        }
+        return padding <= 2 && hasUpperCase && hasLowerCase && hasOther;
+    }
+
+    private boolean isInteger(String literal) {
+        for (int i = literal.startsWith("-") ? 1 : 0; i < literal.length(); i++) {
+            if (!isDigit(literal.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return digits of the mantissa from the first non-zero digit to the last non-zero one
+     */
+    private int significantDigits(String literal) {
+        int first = -1, last = -1, digits = 0;
+        for (int i = 0; i < literal.length(); i++) {
+            final char c = literal.charAt(i);
+            if (c == 'e' || c == 'E') {
+                break;
+            } else if (isDigit(c)) {
+                if (c != '0') {
+                    if (first < 0) {
+                        first = digits;
+                    }
+                    last = digits;
+                }
+                digits++;
+            }
+        }
+        return first < 0 ? 0 : last - first + 1;
+    }
+
+    private boolean hasNonZeroDigit(String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            final char c = literal.charAt(i);
+            if (c == 'e' || c == 'E') {
+                return false;
+            } else if (c >= '1' && c <= '9') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the two digits at the index make a number from min to max
+     */
+    private boolean isNumber(CharSequence value, int index, int min, int max) {
+        if (!isDigits(value, index, 2)) {
+            return false;
+        }
+        final int number = number(value, index);
+        return number >= min && number <= max;
+    }
+
+    /**
+     * @return number of the two digits at the index
+     */
+    private int number(CharSequence value, int index) {
+        return (value.charAt(index) - '0') * 10 + value.charAt(index + 1) - '0';
+    }
+
+    private boolean isDigits(CharSequence value, int index, int count) {
+        for (int i = index; i < index + count; i++) {
+            if (!isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -4,9 +4,18 @@ import com.squareup.javapoet.TypeSpec;
 import com.vladislav.json2pojo.FieldFactory;
 import lombok.RequiredArgsConstructor;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
 @RequiredArgsConstructor
 public class TypeSpecBuilderWrapper {
     public final FieldFactory fieldFactory;
     public final TypeSpec.Builder typeSpec;
     public final String className;
+    public final Map<String, String> jsonNames;  // field name -> json name, for fields generated from json
+    public final Set<String> enumFields;  // names of fields whose type is a generated enum
+    public final Set<String> base64Fields;  // names of byte[] fields that hold base64 strings, not arrays of numbers
+    // field name -> field that keeps raw json of its value until it is decoded, empty if decoding is eager
+    public final Map<String, String> lazyFields = new HashMap<>();
 }
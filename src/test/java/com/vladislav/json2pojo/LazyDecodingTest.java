@@ -0,0 +1,247 @@
+package com.vladislav.json2pojo;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * classes that decode nested values lazily read the same values as classes that decode them right away,
+ * whether raw json is cut out of a string or copied from another reader
+ */
+class LazyDecodingTest {
+    private static final String SAMPLE = "{\"id\": 1, \"name\": \"a\", \"big\": 123456789012345678901234567890,"
+            + " \"address\": {\"city\": \"Paris\", \"location\": {\"lat\": 48.85, \"lon\": 2.35}},"
+            + " \"orders\": [{\"number\": 1, \"items\": [{\"sku\": \"x\", \"qty\": 2}]}],"
+            + " \"tags\": [\"a\", \"b\"], \"scores\": [1.5, 2], \"matrix\": [[1, 2], [3]], \"extra\": {\"k\": 1}}";
+
+    private static final List<String> DOCUMENTS = List.of(
+            SAMPLE,
+            "{\"orders\": [], \"tags\": [], \"address\": null, \"id\": -2}",
+            "{\"name\": \"q \\\"[{\\\" \\\\ \\u00e9\\n\", \"tags\": [\"]}\", \"\\\"\", \"\\u2028\\/\"],"
+                    + " \"address\": {\"city\": \"}{ \\\\\", \"location\": null}}",
+            "{\"unknown\": {\"a\": [1, {\"b\": \"]\"}]}, \"orders\": [{\"items\": null, \"skip\": [[]]},"
+                    + " {\"number\": 2e0, \"items\": [{\"qty\": 1.0E1, \"sku\": null}]}], \"big\": -0.5e-3}",
+            "\n {\r\t\"address\" : { \"location\" : { \"lat\" : 0 , \"lon\" : -1 } } ,"
+                    + " \"matrix\" : [ [ ] , null , [ 7 ] ] , \"scores\" : null , \"extra\" : { } } \n");
+
+    private final Class<?> eager = compile(builder());
+    private final Class<?> lazy = compile(builder().decodeNestedLazily(true));
+
+    @Test
+    void lazyClassesReadTheSameValues() throws Exception {
+        for (String json : DOCUMENTS) {
+            final JsonElement expected = values(read(eager, new JsonReader(new StringReader(json))));
+
+            assertEquals(expected, values(readString(lazy, json)), json);
+            assertEquals(expected, values(read(lazy, RawJson.reader(json))), json);
+            assertEquals(expected, values(read(lazy, new JsonReader(new StringReader(json)))), json);
+        }
+    }
+
+    @Test
+    void peekedReadersAreReadTheSame() throws Exception {
+        for (String json : DOCUMENTS) {
+            final JsonElement expected = values(read(eager, new JsonReader(new StringReader(json))));
+            final JsonReader cutting = RawJson.reader(json);
+            final JsonReader copying = new JsonReader(new StringReader(json));
+            cutting.peek();
+            copying.peek();
+
+            assertEquals(expected, values(read(lazy, cutting)), json);
+            assertEquals(expected, values(read(lazy, copying)), json);
+        }
+    }
+
+    @Test
+    void capturedJsonIsTheValue() throws IOException {
+        final String address = "{ \"city\" : \"Paris \\\"\\u00e9\\\"\" , \"location\" : [ 1 , 2.50 ] }";
+        final String json = "{\"address\": " + address + ", \"tags\": null, \"id\": 7}";
+
+        for (boolean peeked : new boolean[]{false, true}) {
+            final JsonReader cutting = RawJson.reader(json);
+            final JsonReader copying = new JsonReader(new StringReader(json));
+            for (JsonReader reader : List.of(cutting, copying)) {
+                reader.beginObject();
+                assertEquals("address", reader.nextName());
+                if (peeked) {
+                    assertEquals(JsonToken.BEGIN_OBJECT, reader.peek());
+                }
+                final String captured = RawJson.capture(reader);
+                assertEquals(JsonParser.parseString(address), JsonParser.parseString(captured));
+                if (reader == cutting) {
+                    assertEquals(address, captured);  // cut out as it is written, not copied
+                }
+                assertEquals("tags", reader.nextName());
+                assertNull(RawJson.capture(reader));
+                assertEquals("id", reader.nextName());
+                assertEquals("7", RawJson.capture(reader));
+                reader.endObject();
+                assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+            }
+        }
+    }
+
+    @Test
+    void stringReaderGivesTheTokensOfGson() throws IOException {
+        for (String json : DOCUMENTS) {
+            assertEquals(tokens(new JsonReader(new StringReader(json))), tokens(RawJson.reader(json)), json);
+        }
+        final JsonReader numbers = RawJson.reader("[\"12\", 3.0, 1e2, 2.5, 9223372036854775807]");
+        numbers.beginArray();
+        assertEquals(12, numbers.nextInt());
+        assertEquals(3L, numbers.nextLong());
+        assertEquals(100, numbers.nextInt());
+        assertThrows(NumberFormatException.class, numbers::nextInt);
+        assertEquals(Long.MAX_VALUE, numbers.nextLong());
+        numbers.endArray();
+    }
+
+    @Test
+    void malformedJsonFails() {
+        for (String json : new String[]{"{\"a\": 1", "{\"a\" 1}", "{\"a\": tru}", "[1 2]", "[01]", "{\"a\": [}",
+                "{\"a\": \"b}", "{a: 1}", "[1,]", "{} []", ""}) {
+            assertThrows(IOException.class, () -> tokens(RawJson.reader(json)), json);
+        }
+        for (String json : new String[]{"{\"a\": {\"b\": [}}", "{\"a\": [{]}", "{\"a\": \"b"}) {
+            assertThrows(IOException.class, () -> skipA(RawJson.reader(json)), json);
+        }
+    }
+
+    private static GeneratePojoFromJsonBuilder builder() {
+        return GeneratePojoFromJson.builder().generateStreamingReaders(true);
+    }
+
+    private static Class<?> compile(GeneratePojoFromJsonBuilder builder) {
+        return InMemoryCompiler.compile(builder.build().invoke("com.example", "Root", Stream.of(SAMPLE)),
+                LazyDecodingTest.class.getClassLoader());
+    }
+
+    private static Object read(Class<?> root, JsonReader reader) throws Exception {
+        final Method read = root.getDeclaredMethod("read", JsonReader.class);
+        read.setAccessible(true);  // generated methods are package-private
+        return read.invoke(null, reader);
+    }
+
+    private static Object readString(Class<?> root, String json) throws Exception {
+        final Method read = root.getDeclaredMethod("read", String.class);
+        read.setAccessible(true);
+        return read.invoke(null, json);
+    }
+
+    /**
+     * @return values of the fields of a generated object, through getters where there are any,
+     * so lazily decoded values are decoded
+     */
+    private static JsonElement values(Object value) throws Exception {
+        if (value == null) {
+            return JsonNull.INSTANCE;
+        } else if (value instanceof JsonElement) {
+            return (JsonElement) value;
+        } else if (value instanceof Number) {
+            return new JsonPrimitive(value.toString());  // Integer 2 and Long 2 are the same value here
+        } else if (value instanceof Boolean) {
+            return new JsonPrimitive((Boolean) value);
+        } else if (value.getClass().getName().startsWith("java.") && !(value instanceof Iterable)) {
+            return new JsonPrimitive(value.toString());  // strings
+        } else if (value instanceof Iterable || value.getClass().isArray()) {
+            final JsonArray array = new JsonArray();
+            if (value.getClass().isArray()) {
+                for (int i = 0; i < Array.getLength(value); i++) {
+                    array.add(values(Array.get(value, i)));
+                }
+            } else {
+                for (Object element : (Iterable<?>) value) {
+                    array.add(values(element));
+                }
+            }
+            return array;
+        }
+        final JsonObject object = new JsonObject();
+        for (Field field : value.getClass().getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+                continue;
+            }
+            object.add(field.getName(), values(get(value, field)));
+        }
+        return object;
+    }
+
+    private static Object get(Object object, Field field) throws Exception {
+        final String getter = "get" + Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+        for (Method method : object.getClass().getDeclaredMethods()) {
+            if (method.getName().equals(getter) && method.getParameterCount() == 0) {
+                method.setAccessible(true);
+                return method.invoke(object);
+            }
+        }
+        field.setAccessible(true);
+        return field.get(object);
+    }
+
+    /**
+     * @return every token of the json with its value
+     */
+    private static List<String> tokens(JsonReader reader) throws IOException {
+        final List<String> tokens = new ArrayList<>();
+        while (true) {
+            final JsonToken token = reader.peek();
+            tokens.add(token + " " + reader.getPath());
+            switch (token) {
+                case BEGIN_ARRAY:
+                    reader.beginArray();
+                    break;
+                case END_ARRAY:
+                    reader.endArray();
+                    break;
+                case BEGIN_OBJECT:
+                    reader.beginObject();
+                    break;
+                case END_OBJECT:
+                    reader.endObject();
+                    break;
+                case NAME:
+                    tokens.add(reader.nextName());
+                    break;
+                case STRING:
+                case NUMBER:
+                    tokens.add(reader.nextString());
+                    break;
+                case BOOLEAN:
+                    tokens.add(String.valueOf(reader.nextBoolean()));
+                    break;
+                case NULL:
+                    reader.nextNull();
+                    break;
+                default:
+                    return tokens;
+            }
+        }
+    }
+
+    private static void skipA(JsonReader reader) throws IOException {
+        reader.beginObject();
+        assertNotNull(reader.nextName());
+        reader.skipValue();
+    }
+}
@@ -0,0 +1,72 @@
+package com.vladislav.json2pojo;
+
+import com.google.gson.JsonSyntaxException;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * json nested deeper than the max depth fails with {@link JsonSyntaxException} on every entry point,
+ * far deeper than the stack would take if it were walked recursively
+ */
+class MaxDepthTest {
+    private static final String JSON = "{\"id\": 1, \"name\": \"a\", \"big\": 123456789012345678901234567890,"
+            + " \"price\": 1.5e3, \"items\": [{\"id\": 2, \"tags\": [\"x\"]}, {\"id\": 3, \"extra\": null}],"
+            + " \"nested\": {\"deeper\": {\"flag\": true}}, \"matrix\": [[1, 2], [3]], \"empty\": []}";
+
+    private final GeneratePojoFromJson sequential = GeneratePojoFromJson.builder().build();
+    private final GeneratePojoFromJson parallel = GeneratePojoFromJson.builder()
+            .useParallelInference(true)
+            .setParallelThreshold(1)
+            .build();
+
+    @Test
+    void deepJsonFailsOnEveryEntryPoint() {
+        final String json = nested(100_000);
+
+        assertThrows(JsonSyntaxException.class, () -> sequential.invoke("com.example", "Root", json));
+        assertThrows(JsonSyntaxException.class, () -> parallel.invoke("com.example", "Root", json));
+        assertThrows(JsonSyntaxException.class,
+                () -> sequential.invoke("com.example", "Root", new StringReader(json)));
+        assertThrows(JsonSyntaxException.class, () -> JsonSchema.of(json));
+    }
+
+    @Test
+    void jsonAtTheMaxDepthIsGenerated() {
+        final GeneratePojoFromJson limited = GeneratePojoFromJson.builder().setMaxDepth(10).build();
+        final GeneratePojoFromJson limitedParallel = GeneratePojoFromJson.builder()
+                .useParallelInference(true)
+                .setMaxDepth(10)
+                .build();
+
+        assertEquals(limited.invoke("com.example", "Root", nested(10)).toString(),
+                limitedParallel.invoke("com.example", "Root", nested(10)).toString());
+        assertThrows(JsonSyntaxException.class, () -> limited.invoke("com.example", "Root", nested(11)));
+        assertThrows(JsonSyntaxException.class, () -> limitedParallel.invoke("com.example", "Root", nested(11)));
+    }
+
+    @Test
+    void parallelTreeGivesSameClassesAsStream() {
+        assertEquals(sequential.invoke("com.example", "Root", JSON).toString(),
+                parallel.invoke("com.example", "Root", JSON).toString());
+        assertEquals(sequential.invoke("com.example", "Root", new StringReader(JSON)).toString(),
+                parallel.invoke("com.example", "Root", JSON).toString());
+    }
+
+    @Test
+    void malformedJsonFailsInTheTree() {
+        assertThrows(JsonSyntaxException.class, () -> parallel.invoke("com.example", "Root", "{\"a\": [1, }"));
+        assertThrows(JsonSyntaxException.class, () -> parallel.invoke("com.example", "Root", "{} {}"));
+        assertThrows(IllegalStateException.class, () -> parallel.invoke("com.example", "Root", "[1]"));
+    }
+
+    /**
+     * @return object with an object nested in it, and so on, depth objects in total
+     */
+    private static String nested(int depth) {
+        return "{\"a\": ".repeat(depth - 1) + "{}" + "}".repeat(depth - 1);
+    }
+}
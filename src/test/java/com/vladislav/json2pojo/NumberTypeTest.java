@@ -0,0 +1,61 @@
+package com.vladislav.json2pojo;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * numbers of several widths get a type that holds all of them, big integers and doubles need big decimals
+ */
+class NumberTypeTest {
+    private static final String BIG_INTEGER = "123456789012345678901234567890";
+
+    private final GeneratePojoFromJson detecting = GeneratePojoFromJson.builder()
+            .detectValueFormats(ValueFormat.values())
+            .build();
+
+    @Test
+    void joinHoldsBothTypes() {
+        assertEquals(NumberType.BIG_DECIMAL, NumberType.BIG_INTEGER.join(NumberType.DOUBLE));
+        assertEquals(NumberType.BIG_DECIMAL, NumberType.DOUBLE.join(NumberType.BIG_INTEGER));
+        assertEquals(NumberType.BIG_DECIMAL, NumberType.BIG_INTEGER.join(NumberType.BIG_DECIMAL));
+        assertEquals(NumberType.BIG_INTEGER, NumberType.LONG.join(NumberType.BIG_INTEGER));
+        assertEquals(NumberType.DOUBLE, NumberType.DOUBLE.join(NumberType.INT));
+        assertEquals(NumberType.BIG_DECIMAL,
+                NumberType.join(1 << NumberType.INT.ordinal() | 1 << NumberType.BIG_INTEGER.ordinal()
+                        | 1 << NumberType.DOUBLE.ordinal()));
+        assertEquals(NumberType.BIG_INTEGER,
+                NumberType.join(1 << NumberType.INT.ordinal() | 1 << NumberType.BIG_INTEGER.ordinal()));
+    }
+
+    @Test
+    void arrayOfBigIntegerAndDoubleIsBigDecimal() {
+        final String json = "{\"v\": [" + BIG_INTEGER + ", 1.5]}";
+
+        assertTrue(detecting.invoke("com.example", "Root", json).toString().contains("List<BigDecimal> v;"));
+        assertTrue(detecting.invoke("com.example", "Root", new StringReader(json)).toString()
+                .contains("List<BigDecimal> v;"));
+    }
+
+    @Test
+    void samplesOfBigIntegerAndDoubleAreBigDecimal() {
+        final String source = detecting.invoke("com.example", "Root",
+                Stream.of("{\"w\": " + BIG_INTEGER + "}", "{\"w\": 1.5}")).toString();
+
+        assertTrue(source.contains("BigDecimal w;"), source);
+    }
+
+    @Test
+    void bigNumbersAreDoublesUnlessDetected() {
+        final String source = GeneratePojoFromJson.builder().build().invoke("com.example", "Root",
+                Stream.of("{\"v\": [" + BIG_INTEGER + ", 1.5], \"w\": " + BIG_INTEGER + "}", "{\"w\": 1.5}"))
+                .toString();
+
+        assertTrue(source.contains("List<Double> v;"), source);
+        assertTrue(source.contains("Double w;"), source);
+    }
+}
@@ -0,0 +1,123 @@
+package com.vladislav.json2pojo;
+
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * streaming inference gives the same classes as inference from a parsed tree, and never keeps the document.
+ * The document larger than the heap is streamed only with {@code mvn -Plarge-documents test}
+ */
+class StreamingInferenceTest {
+    private static final String LARGE_DOCUMENT_BYTES = "json2pojo.largeDocumentBytes";
+
+    private final GeneratePojoFromJson generatePojoFromJson = GeneratePojoFromJson.builder().build();
+
+    @Test
+    void streamedDocumentGivesSameClassesAsParsedTree() throws Exception {
+        final String json = read(new GeneratedDocument(1_000_000));
+
+        assertEquals(parsed(json),
+                generatePojoFromJson.invoke("com.example", "Root", new StringReader(json)).toString());
+    }
+
+    @Test
+    void streamedInputStreamGivesSameClassesAsParsedTree() throws Exception {
+        final String json = read(new GeneratedDocument(100_000));
+
+        assertEquals(parsed(json), generatePojoFromJson.invoke("com.example", "Root",
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))).toString());
+    }
+
+    @Test
+    void documentLargerThanHeapIsStreamed() throws Exception {
+        final long size = Long.getLong(LARGE_DOCUMENT_BYTES, 0);
+        assumeTrue(size > 0, "set " + LARGE_DOCUMENT_BYTES + " or run with -Plarge-documents");
+        assertTrue(size > 2 * Runtime.getRuntime().maxMemory(), "document must not fit into the heap");
+        final GeneratedDocument document = new GeneratedDocument(size);
+
+        final String streamed = generatePojoFromJson.invoke("com.example", "Root", document).toString();
+
+        assertTrue(document.written >= size);
+        assertEquals(parsed(read(new GeneratedDocument(100_000))), streamed);  // every element has the same shape
+    }
+
+    private String parsed(String json) {
+        final JsonSchema schema = new JsonSchema(JsonShapes.of(JsonParser.parseString(json).getAsJsonObject()));
+        return generatePojoFromJson.invoke("com.example", "Root", schema).toString();
+    }
+
+    private static String read(Reader reader) throws Exception {
+        final StringWriter writer = new StringWriter();
+        reader.transferTo(writer);
+        return writer.toString();
+    }
+
+    /**
+     * json object with an array of elements of the same shape, elements are made up as they are read,
+     * so the document takes no memory however large it is
+     */
+    private static final class GeneratedDocument extends Reader {
+        private final long size;  // elements are added until the document has at least this many characters
+        private final StringBuilder chunk = new StringBuilder();
+        private int chunkPosition;
+        private long written;
+        private int elements;
+        private boolean finished;
+
+        GeneratedDocument(long size) {
+            this.size = size;
+            chunk.append("{\"id\": 1, \"title\": \"generated\", \"items\": [");
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (chunkPosition == chunk.length() && !nextChunk()) {
+                return -1;
+            }
+            final int count = Math.min(length, chunk.length() - chunkPosition);
+            chunk.getChars(chunkPosition, chunkPosition + count, buffer, offset);
+            chunkPosition += count;
+            written += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private boolean nextChunk() {
+            if (finished) {
+                return false;
+            }
+            chunk.setLength(0);
+            chunkPosition = 0;
+            if (written >= size) {
+                chunk.append("], \"meta\": {\"count\": ").append(elements).append(", \"complete\": true}}");
+                finished = true;
+                return true;
+            }
+            for (int i = 0; i < 64; i++, elements++) {
+                if (elements > 0) {
+                    chunk.append(", ");
+                }
+                chunk.append("{\"id\": ").append(elements % 1000)
+                        .append(", \"name\": \"item-").append(elements).append('"')
+                        .append(", \"price\": ").append(elements % 100).append(".25")
+                        .append(", \"tags\": [\"a\", \"b").append(elements % 7).append("\"]")
+                        .append(", \"details\": {\"flag\": ").append(elements % 2 == 0)
+                        .append(", \"code\": null, \"weight\": ").append(elements % 50).append("}}");
+            }
+            return true;
+        }
+    }
+}
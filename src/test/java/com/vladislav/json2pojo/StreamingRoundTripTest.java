@@ -0,0 +1,138 @@
+package com.vladislav.json2pojo;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.squareup.javapoet.JavaFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * generated classes are compiled with their streaming readers and writers, a sample is read and written back.
+ * Written json and bytes are compared with the sample and with what reflective gson makes of the same classes
+ */
+class StreamingRoundTripTest {
+    private static final String JSON = "{\"id\": 7, \"user_name\": \"Ann \\\"A\\\" \\u00e9\\n\", \"score\": 1.5,"
+            + " \"active\": true, \"tags\": [\"a\", null, \"b\"], \"counts\": [1, 2, 3],"
+            + " \"address\": {\"city\": \"Paris\", \"zip\": null, \"location\": {\"lat\": 48.85, \"lon\": 2.35}},"
+            + " \"orders\": [{\"number\": 1, \"total\": 10.5}, {\"number\": 2, \"total\": 0.25}],"
+            + " \"missing\": null, \"empty\": {}}";
+
+    // generated fields are camel case without @SerializedName, json names are snake case
+    private final Gson gson = new GsonBuilder()
+            .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+            .serializeNulls()
+            .create();
+
+    @Test
+    void writtenJsonIsTheSample() throws Exception {
+        final Class<?> root = compile(builder(), JSON);
+
+        assertEquals(JsonParser.parseString(JSON), write(read(root, JSON)));
+    }
+
+    @Test
+    void bytesAreTheSample() throws Exception {
+        final Class<?> root = compile(builder(), JSON);
+
+        assertEquals(JsonParser.parseString(JSON), writeBytes(read(root, JSON)));
+    }
+
+    @Test
+    void generatedSourcesDontReferToTheLibrary() throws Exception {
+        final String nested = builder().build().invoke("com.example", "Root", JSON).toString();
+        final List<JavaFile> split = new ArrayList<>();
+        builder().splitNestedClasses(true).build()
+                .writeTo("com.example", "Root", new StringReader(JSON), split::add);
+
+        assertFalse(nested.contains("com.vladislav"), nested);
+        assertTrue(split.stream().anyMatch(javaFile -> javaFile.typeSpec.name.equals(JsonBytesClass.NAME)));
+        for (JavaFile javaFile : split) {
+            assertFalse(javaFile.toString().contains("com.vladislav"), javaFile.toString());
+        }
+    }
+
+    @Test
+    void streamingAndReflectiveGsonAgree() throws Exception {
+        final Class<?> root = compile(builder(), JSON);
+
+        assertEquals(JsonParser.parseString(gson.toJson(read(root, JSON))), write(read(root, JSON)));
+        assertEquals(JsonParser.parseString(JSON), write(gson.fromJson(JSON, root)));
+    }
+
+    @Test
+    void compactClassesAreWrittenAsTheSample() throws Exception {
+        final Class<?> root = compile(builder().useCompactLayout(true).usePrimitiveArrays(true), JSON);
+
+        assertEquals(JsonParser.parseString(JSON.replace("[\"a\", null, \"b\"]", "[\"a\", \"b\"]")),
+                write(read(root, JSON.replace("[\"a\", null, \"b\"]", "[\"a\", \"b\"]"))));
+    }
+
+    @Test
+    void valuesOfDetectedFormatsAreWrittenAsTheyAreRead() throws Exception {
+        final String json = "{\"day\": \"2024-02-29\", \"at\": \"2024-02-29T10:15:30Z\","
+                + " \"id\": \"123e4567-e89b-12d3-a456-426614174000\", \"big\": 123456789012345678901234567890,"
+                + " \"exact\": 0.1000000000000000000001, \"data\": \"aGVsbG8gd29ybGQ=\"}";
+        final Class<?> root = compile(builder().detectValueFormats(ValueFormat.values()), json);
+
+        assertEquals(JsonParser.parseString(json), write(read(root, json)));
+        assertEquals(JsonParser.parseString(json), writeBytes(read(root, json)));
+    }
+
+    private static GeneratePojoFromJsonBuilder builder() {
+        return GeneratePojoFromJson.builder().generateStreamingReaders(true).generateStreamingWriters(true);
+    }
+
+    private static Class<?> compile(GeneratePojoFromJsonBuilder builder, String json) {
+        return InMemoryCompiler.compile(builder.build().invoke("com.example", "Root", json),
+                StreamingRoundTripTest.class.getClassLoader());
+    }
+
+    private static Object read(Class<?> root, String json) throws Exception {
+        final Method read = root.getDeclaredMethod("read", JsonReader.class);
+        read.setAccessible(true);  // generated methods are package-private
+        return read.invoke(null, new JsonReader(new StringReader(json)));
+    }
+
+    private static JsonElement write(Object object) throws Exception {
+        final Method writeTo = object.getClass().getDeclaredMethod("writeTo", JsonWriter.class);
+        writeTo.setAccessible(true);
+        final StringWriter json = new StringWriter();
+        final JsonWriter writer = new JsonWriter(json);
+        writer.setSerializeNulls(true);
+        writeTo.invoke(object, writer);
+        return JsonParser.parseString(json.toString());
+    }
+
+    /**
+     * writes with {@code writeTo(JsonBytes out)}, JsonBytes is generated nested in the root class
+     */
+    private static JsonElement writeBytes(Object object) throws Exception {
+        final Class<?> bytesClass = Class.forName(object.getClass().getName().replaceFirst("\\$.*", "")
+                + "$" + JsonBytesClass.NAME, true, object.getClass().getClassLoader());
+        final Constructor<?> constructor = bytesClass.getDeclaredConstructor(int.class);
+        constructor.setAccessible(true);
+        final Object bytes = constructor.newInstance(16);  // grows while it is written
+        final Method writeTo = object.getClass().getDeclaredMethod("writeTo", bytesClass);
+        writeTo.setAccessible(true);
+        writeTo.invoke(object, bytes);
+        final Method toByteArray = bytesClass.getDeclaredMethod("toByteArray");
+        toByteArray.setAccessible(true);
+        return JsonParser.parseString(new String((byte[]) toByteArray.invoke(bytes), StandardCharsets.UTF_8));
+    }
+}